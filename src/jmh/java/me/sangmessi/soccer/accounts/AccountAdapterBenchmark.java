@@ -0,0 +1,52 @@
+package me.sangmessi.soccer.accounts;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 인증/토큰 조회마다 실행되는 AccountAdapter 생성과 권한 조회 비용. 권한 집합은 역할 조합마다 공유된다.
+ *
+ * ./mvnw -P benchmark test -Djmh.args="AccountAdapterBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountAdapterBenchmark {
+
+    private Account account;
+
+    private AccountAdapter accountAdapter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        account = Account.builder()
+                .id(1)
+                .email("benchmark@gmail.com")
+                .password("{noop}benchmark")
+                .roles(Set.of(AccountRole.ADMIN, AccountRole.USER))
+                .build();
+        accountAdapter = new AccountAdapter(account);
+    }
+
+    @Benchmark
+    public AccountAdapter createAdapter() {
+        return new AccountAdapter(account);
+    }
+
+    @Benchmark
+    public Collection<GrantedAuthority> getAuthorities() {
+        return accountAdapter.getAuthorities();
+    }
+
+    @Benchmark
+    public boolean hasAdminRole() {
+        return accountAdapter.hasRole(AccountRole.ADMIN);
+    }
+}
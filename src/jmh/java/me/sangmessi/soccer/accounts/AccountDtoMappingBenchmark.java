@@ -0,0 +1,78 @@
+package me.sangmessi.soccer.accounts;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccountDto 와 Account 를 서로 매핑하는 비용. 예전 AppConfig 의 ModelMapper(리플렉션)와
+ * MapStruct 가 생성한 AccountMapperImpl 을 비교한다. ModelMapper 는 benchmark 프로파일에만 남아 있다.
+ *
+ * ./mvnw -P benchmark test -Djmh.args="AccountDtoMappingBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountDtoMappingBenchmark {
+
+    private ModelMapper modelMapper;
+
+    private AccountMapper accountMapper;
+
+    private AccountDto accountDto;
+
+    private Account account;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        modelMapper = new ModelMapper();
+        accountMapper = new AccountMapperImpl();
+        accountDto = AccountDto.builder()
+                .id(1)
+                .email("benchmark@gmail.com")
+                .password("benchmark")
+                .name("벤치마크")
+                .roles(Set.of(AccountRole.ADMIN, AccountRole.USER))
+                .build();
+        account = modelMapper.map(accountDto, Account.class);
+    }
+
+    @Benchmark
+    public Account dtoToAccountWithModelMapper() {
+        return modelMapper.map(accountDto, Account.class);
+    }
+
+    @Benchmark
+    public Account dtoOntoExistingAccountWithModelMapper() {
+        Account target = new Account();
+        modelMapper.map(accountDto, target);
+        return target;
+    }
+
+    @Benchmark
+    public AccountDto accountToDtoWithModelMapper() {
+        return modelMapper.map(account, AccountDto.class);
+    }
+
+    @Benchmark
+    public Account dtoToAccountWithMapStruct() {
+        return accountMapper.toAccount(accountDto);
+    }
+
+    @Benchmark
+    public Account dtoOntoExistingAccountWithMapStruct() {
+        Account target = new Account();
+        accountMapper.updateAccount(accountDto, target);
+        return target;
+    }
+
+    @Benchmark
+    public AccountDto accountToDtoWithMapStruct() {
+        return accountMapper.toDto(account);
+    }
+}
@@ -0,0 +1,163 @@
+package me.sangmessi.soccer.accounts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.core.DefaultRelProvider;
+import org.springframework.hateoas.hal.Jackson2HalModule;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+/**
+ * 단건 조회 응답을 만드는 비용: AccountResource 생성(self 링크)과 HAL JSON 직렬화.
+ * 링크 생성은 매번 linkTo 를 호출하는 방식과 AccountLinks(요청마다 기준 URI 한 번 계산)를 단건과 100건 페이지로 비교한다.
+ * 링크 비교는 모두 호출마다 새 요청을 만들므로 요청 생성 비용이 양쪽에 똑같이 들어간다.
+ * 직렬화는 기본 ObjectMapper 와 AfterburnerModule 을 등록한 ObjectMapper 를 비교한다. 할당량은 -prof gc 로 본다.
+ *
+ * ./mvnw -P benchmark test -Djmh.args="AccountResourceBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountResourceBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    private Account account;
+
+    private AccountLinks accountLinks;
+
+    private AccountResource accountResource;
+
+    private List<AccountResource> accountResources;
+
+    private ObjectMapper objectMapper;
+
+    private ObjectMapper afterburnerObjectMapper;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        newRequest();
+
+        account = Account.builder()
+                .id(1)
+                .email("benchmark@gmail.com")
+                .password("{bcrypt}$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbench")
+                .name("벤치마크")
+                .roles(Set.of(AccountRole.ADMIN, AccountRole.USER))
+                .build();
+        accountLinks = new AccountLinks();
+        accountResource = newAccountResource();
+        accountResources = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            accountResources.add(newAccountResource());
+        }
+
+        objectMapper = halObjectMapper();
+        afterburnerObjectMapper = halObjectMapper();
+        afterburnerObjectMapper.registerModule(new AfterburnerModule());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public AccountResource createResource() {
+        return newAccountResource();
+    }
+
+    @Benchmark
+    public byte[] serializeResource() throws Exception {
+        return objectMapper.writeValueAsBytes(accountResource);
+    }
+
+    @Benchmark
+    public byte[] serializeResourceWithAfterburner() throws Exception {
+        return afterburnerObjectMapper.writeValueAsBytes(accountResource);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(accountResources);
+    }
+
+    @Benchmark
+    public byte[] serializePageWithAfterburner() throws Exception {
+        return afterburnerObjectMapper.writeValueAsBytes(accountResources);
+    }
+
+    @Benchmark
+    public byte[] createAndSerializeResource() throws Exception {
+        return objectMapper.writeValueAsBytes(newAccountResource());
+    }
+
+    @Benchmark
+    public Link selfLinkWithLinkTo() {
+        newRequest();
+        return linkTo(AccountController.class).slash(account.getEmail()).withSelfRel();
+    }
+
+    @Benchmark
+    public Link selfLinkWithAccountLinks() {
+        newRequest();
+        return accountLinks.self(account);
+    }
+
+    @Benchmark
+    public List<Link> pageLinksWithLinkTo() {
+        newRequest();
+        List<Link> links = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            links.add(linkTo(AccountController.class).slash(account.getEmail()).withSelfRel());
+        }
+        return links;
+    }
+
+    @Benchmark
+    public List<Link> pageLinksWithAccountLinks() {
+        newRequest();
+        List<Link> links = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            links.add(accountLinks.self(account));
+        }
+        return links;
+    }
+
+    /**
+     * 링크 비교는 호출마다 새 요청에서 시작한다.
+     * 요청 범위 속성은 요청 객체에 저장되므로, 요청을 재사용하면 AccountLinks 가 캐시한 기준 URI 가 다음 호출까지 남는다.
+     */
+    private void newRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts/1");
+        request.setServerName("localhost");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static ObjectMapper halObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new Jackson2HalModule());
+        objectMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(new DefaultRelProvider(), null, null));
+        return objectMapper;
+    }
+
+    private AccountResource newAccountResource() {
+        AccountResource resource = new AccountResource(account, accountLinks.self(account));
+        resource.add(new Link("/docs/index.html#resources-accounts-get").withRel("profile"));
+        return resource;
+    }
+}
@@ -0,0 +1,62 @@
+package me.sangmessi.soccer.passwords;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * bcrypt strength 별 encode/matches 시간과 HashingPasswordEncoder 의 스레드 전환 비용.
+ *
+ * ./mvnw -P benchmark test -Djmh.args="PasswordEncoderBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"4", "10", "12"})
+    int strength;
+
+    private PasswordEncoder passwordEncoder;
+
+    private HashingPasswordEncoder hashingPasswordEncoder;
+
+    private String encodedPassword;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        passwordEncoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", new BCryptPasswordEncoder(strength)));
+        hashingPasswordEncoder = new HashingPasswordEncoder(passwordEncoder, strength,
+                Runtime.getRuntime().availableProcessors(), 100);
+        encodedPassword = passwordEncoder.encode(PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hashingPasswordEncoder.destroy();
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(PASSWORD, encodedPassword);
+    }
+
+    @Benchmark
+    public boolean matchesOnHashingExecutor() {
+        return hashingPasswordEncoder.matches(PASSWORD, encodedPassword);
+    }
+}
@@ -0,0 +1,61 @@
+package me.sangmessi.soccer.ratelimit;
+
+import me.sangmessi.soccer.configs.AppProperties;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 토큰 요청 하나를 RateLimitFilter 가 판단하는 비용(주소, 클라이언트, 사용자 이름 버킷 세 개)과
+ * 여러 스레드가 같은 버킷을 쓸 때의 TokenBucket CAS 비용(코어가 4개 이상일 때 의미가 있다). 허용량은 거절되지 않을 만큼 크게 둔다.
+ *
+ * ./mvnw -P benchmark test -Djmh.args="RateLimitFilterBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    private RateLimitFilter filter;
+
+    private TokenBucket bucket;
+
+    private MockHttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        AppProperties.RateLimit properties = new AppProperties.RateLimit();
+        for (AppProperties.RateLimit.Limit limit : new AppProperties.RateLimit.Limit[]{
+                properties.getClient(), properties.getAddress(), properties.getUsername()}) {
+            limit.setPermitsPerSecond(1e9);
+            limit.setBurst(1_000_000);
+        }
+        filter = new RateLimitFilter(properties);
+        bucket = new TokenBucket(1, 1_000_000, System.nanoTime());
+
+        request = new MockHttpServletRequest("POST", RateLimitFilter.TOKEN_PATH);
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Basic "
+                + Base64.getEncoder().encodeToString("myApp:pass".getBytes(StandardCharsets.UTF_8)));
+        request.addParameter("username", "admin@gmail.com");
+        request.addParameter("grant_type", "password");
+    }
+
+    @Benchmark
+    public long tokenRequest() {
+        return filter.acquire(request, System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long bucketContended() {
+        return bucket.tryAcquire(System.nanoTime());
+    }
+}
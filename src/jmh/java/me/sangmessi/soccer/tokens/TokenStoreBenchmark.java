@@ -0,0 +1,143 @@
+package me.sangmessi.soccer.tokens;
+
+import me.sangmessi.soccer.SoccerApplication;
+import me.sangmessi.soccer.accounts.Account;
+import me.sangmessi.soccer.accounts.AccountAdapter;
+import me.sangmessi.soccer.accounts.AccountRole;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InMemoryTokenStore 와 JpaTokenStore 의 토큰 조회 지연 시간 비교.
+ * 기본값은 test 프로파일(H2)이며 -Dspring.datasource.url 등으로 PostgreSQL 을 지정할 수 있다.
+ *
+ * ./mvnw -P benchmark test -Djmh.args="TokenStoreBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TokenStoreBenchmark {
+
+    private static final int SEED_BATCH_SIZE = 1_000;
+
+    @Param({"memory", "jpa"})
+    String type;
+
+    @Param("1000000")
+    int liveTokens;
+
+    private ConfigurableApplicationContext context;
+
+    private TokenStore tokenStore;
+
+    private DefaultTokenServices tokenServices;
+
+    private String[] tokenValues;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(SoccerApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.security=WARN",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + SEED_BATCH_SIZE,
+                        "--my-app.token-store.type=" + type);
+        tokenStore = context.getBean(TokenStore.class);
+        tokenServices = new DefaultTokenServices();
+        tokenServices.setTokenStore(tokenStore);
+
+        OAuth2Authentication authentication = authentication();
+        tokenValues = new String[liveTokens];
+        Date expiration = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        for (int i = 0; i < liveTokens; i++) {
+            tokenValues[i] = UUID.randomUUID().toString();
+        }
+
+        if (tokenStore instanceof JpaTokenStore) {
+            JpaTokenStore jpaTokenStore = (JpaTokenStore) tokenStore;
+            StoredAccessTokenRepository repository = context.getBean(StoredAccessTokenRepository.class);
+            TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+            for (int from = 0; from < liveTokens; from += SEED_BATCH_SIZE) {
+                List<StoredAccessToken> batch = new ArrayList<>(SEED_BATCH_SIZE);
+                for (int i = from; i < Math.min(from + SEED_BATCH_SIZE, liveTokens); i++) {
+                    batch.add(jpaTokenStore.newAccessToken(accessToken(tokenValues[i], expiration), authentication));
+                }
+                transactionTemplate.execute(status -> repository.saveAll(batch));
+            }
+        } else {
+            for (String tokenValue : tokenValues) {
+                tokenStore.storeAccessToken(accessToken(tokenValue, expiration), authentication);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OAuth2AccessToken readAccessTokenHot() {
+        return tokenStore.readAccessToken(tokenValues[0]);
+    }
+
+    @Benchmark
+    public OAuth2AccessToken readAccessTokenRandom() {
+        return tokenStore.readAccessToken(randomTokenValue());
+    }
+
+    @Benchmark
+    public OAuth2Authentication loadAuthenticationRandom() {
+        return tokenServices.loadAuthentication(randomTokenValue());
+    }
+
+    private String randomTokenValue() {
+        return tokenValues[ThreadLocalRandom.current().nextInt(liveTokens)];
+    }
+
+    private static OAuth2AccessToken accessToken(String value, Date expiration) {
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(value);
+        accessToken.setExpiration(expiration);
+        accessToken.setScope(Set.of("read", "write"));
+        return accessToken;
+    }
+
+    private static OAuth2Authentication authentication() {
+        Account account = Account.builder()
+                .id(1)
+                .email("benchmark@gmail.com")
+                .password("{noop}benchmark")
+                .roles(Set.of(AccountRole.ADMIN, AccountRole.USER))
+                .build();
+        AccountAdapter principal = new AccountAdapter(account);
+        OAuth2Request request = new OAuth2Request(Map.of(), "myApp", principal.getAuthorities(), true,
+                Set.of("read", "write"), Set.of("soccer"), null, Set.of(), Map.of());
+        return new OAuth2Authentication(request,
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
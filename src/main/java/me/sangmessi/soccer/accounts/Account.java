@@ -1,22 +1,53 @@
 package me.sangmessi.soccer.accounts;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
 import java.util.Set;
 
 @Entity
+@DynamicUpdate
+@EntityListeners(AccountEmailListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "account")
 @Getter @Setter @EqualsAndHashCode(of = "id")
 @Builder @NoArgsConstructor @AllArgsConstructor
-public class Account {
-    @Id @GeneratedValue
+public class Account implements Serializable {
+    /**
+     * 토큰 저장소가 AccountAdapter 와 함께 직렬화해 두므로 필드를 바꿔도 기존 토큰을 읽을 수 있게 고정한다.
+     */
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     private Integer id;
-    @Column(unique = true)
+    @Column(unique = true, nullable = false)
     private String email;
     private String password;
     private String name;
-    @ElementCollection(fetch = FetchType.EAGER)
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = AccountRolesConverter.class)
+    @Column(name = "roles", nullable = false)
     private Set<AccountRole> roles;
+    @UpdateTimestamp
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant updatedAt;
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    /**
+     * DB 나 토큰에서 읽은 roles 는 EnumSet 이므로 비트 검사 한 번이다.
+     */
+    public boolean hasRole(AccountRole role) {
+        return roles != null && roles.contains(role);
+    }
 }
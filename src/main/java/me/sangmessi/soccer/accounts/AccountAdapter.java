@@ -1,27 +1,95 @@
 package me.sangmessi.soccer.accounts;
 
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.Collection;
 import java.util.Set;
-import java.util.stream.Collectors;
 
-public class AccountAdapter extends User {
+/**
+ * Account 를 감싼 UserDetails. User 를 상속하면 생성할 때마다 권한을 TreeSet 으로 다시 정렬하므로
+ * 역할 비트마스크만 계산해 두고 권한은 AccountAuthorities 의 공유 집합을 돌려준다.
+ * equals/hashCode 는 User 와 같이 username 으로 비교한다.
+ */
+public class AccountAdapter implements UserDetails, CredentialsContainer {
 
-    private Account account;
+    private static final long serialVersionUID = 1L;
+
+    private final Account account;
+
+    private final String username;
+
+    private String password;
+
+    private final int roleMask;
 
     public Account getAccount() {
         return account;
     }
 
     public AccountAdapter(Account account) {
-        super(account.getEmail(), account.getPassword(), authorities(account.getRoles()));
         this.account = account;
+        this.username = account.getEmail();
+        this.password = account.getPassword();
+        this.roleMask = AccountRole.mask(account.getRoles());
+    }
+
+    public boolean hasRole(AccountRole role) {
+        return (roleMask & role.getMask()) != 0;
+    }
+
+    @Override
+    public Set<GrantedAuthority> getAuthorities() {
+        return AccountAuthorities.of(roleMask);
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AccountAdapter && username.equals(((AccountAdapter) o).username);
+    }
+
+    @Override
+    public int hashCode() {
+        return username.hashCode();
     }
 
-    private static Collection<? extends GrantedAuthority> authorities(Set<AccountRole> roles) {
-        return roles.stream().map(r -> new SimpleGrantedAuthority("ROLE_"+r.name())).collect(Collectors.toSet());
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [Username=" + username + ", Granted Authorities=" + getAuthorities() + "]";
     }
 }
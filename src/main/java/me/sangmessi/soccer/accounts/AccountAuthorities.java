@@ -0,0 +1,45 @@
+package me.sangmessi.soccer.accounts;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.*;
+
+/**
+ * 역할 조합(AccountRole 비트마스크)마다 미리 만들어 둔 불변 GrantedAuthority 집합.
+ * 모든 AccountAdapter 가 같은 인스턴스를 공유하므로 인증할 때마다 권한 객체를 만들지 않는다.
+ * 집합의 순서는 User 와 같이 authority 문자열 순이다.
+ */
+final class AccountAuthorities {
+
+    private static final AccountRole[] ROLES = AccountRole.values();
+
+    private static final List<Set<GrantedAuthority>> BY_MASK;
+
+    static {
+        GrantedAuthority[] authorities = new GrantedAuthority[ROLES.length];
+        int maxMask = 0;
+        for (int i = 0; i < ROLES.length; i++) {
+            authorities[i] = new SimpleGrantedAuthority("ROLE_" + ROLES[i].name());
+            maxMask |= ROLES[i].getMask();
+        }
+        List<Set<GrantedAuthority>> byMask = new ArrayList<>(maxMask + 1);
+        for (int mask = 0; mask <= maxMask; mask++) {
+            SortedSet<GrantedAuthority> sorted = new TreeSet<>(Comparator.comparing(GrantedAuthority::getAuthority));
+            for (int i = 0; i < ROLES.length; i++) {
+                if ((mask & ROLES[i].getMask()) != 0) {
+                    sorted.add(authorities[i]);
+                }
+            }
+            byMask.add(Collections.unmodifiableSet(new LinkedHashSet<>(sorted)));
+        }
+        BY_MASK = Collections.unmodifiableList(byMask);
+    }
+
+    private AccountAuthorities() {
+    }
+
+    static Set<GrantedAuthority> of(int mask) {
+        return BY_MASK.get(mask);
+    }
+}
@@ -0,0 +1,60 @@
+package me.sangmessi.soccer.accounts;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import me.sangmessi.soccer.configs.AppProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 로그인 경로에서 사용하는 계정 캐시 (my-app.user-cache.*).
+ * AccountAdapter 는 인증 후 credentials 가 지워지므로 Account 를 캐시하고 어댑터는 매번 새로 만든다.
+ */
+@Component
+public class AccountCache implements MeterBinder {
+
+    private final Cache<String, Account> cache;
+
+    public AccountCache(AppProperties appProperties) {
+        AppProperties.UserCache properties = appProperties.getUserCache();
+        if (properties.isEnabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(properties.getMaximumSize())
+                    .expireAfterWrite(properties.getExpireAfterWrite().toMillis(), TimeUnit.MILLISECONDS)
+                    .recordStats()
+                    .build();
+        } else {
+            this.cache = null;
+        }
+    }
+
+    public Account get(String username, Function<String, Account> loader) {
+        if (cache == null) {
+            return loader.apply(username);
+        }
+        return cache.get(username, loader);
+    }
+
+    public void evict(String username) {
+        if (cache != null && username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, "accounts");
+        }
+    }
+
+    public CacheStats stats() {
+        return cache == null ? CacheStats.empty() : cache.stats();
+    }
+}
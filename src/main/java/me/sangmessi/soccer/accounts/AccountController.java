@@ -1,98 +1,311 @@
 package me.sangmessi.soccer.accounts;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import me.sangmessi.soccer.async.DatabaseBound;
 import me.sangmessi.soccer.commons.ErrorResource;
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.MediaTypes;
-import org.springframework.hateoas.mvc.ControllerLinkBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
+@DatabaseBound
 @RequestMapping(value = "api/accounts", produces = MediaTypes.HAL_JSON_UTF8_VALUE)
 public class AccountController {
 
-    private final AccountService accountService;
+    private static final String PREFER = "Prefer";
+
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
 
-    private final ModelMapper modelMapper;
+    private static final String RESPOND_ASYNC = "respond-async";
+
+    private final AccountService accountService;
 
     private final AccountValidator accountValidator;
 
     private final AccountRepository accountRepository;
 
-    public AccountController(AccountService accountService, ModelMapper modelMapper, AccountValidator accountValidator, AccountRepository accountRepository) {
+    private final AccountImportService accountImportService;
+
+    private final ObjectWriter importResultWriter;
+
+    private final AccountLinks accountLinks;
+
+    private final AccountPageWriter accountPageWriter;
+
+    private final AccountExportService accountExportService;
+
+    private final AccountWriteBehind accountWriteBehind;
+
+    public AccountController(AccountService accountService, AccountValidator accountValidator, AccountRepository accountRepository,
+                             AccountImportService accountImportService, ObjectMapper objectMapper, AccountLinks accountLinks,
+                             AccountPageWriter accountPageWriter, AccountExportService accountExportService,
+                             AccountWriteBehind accountWriteBehind) {
         this.accountService = accountService;
-        this.modelMapper = modelMapper;
         this.accountValidator = accountValidator;
         this.accountRepository = accountRepository;
+        this.accountImportService = accountImportService;
+        this.importResultWriter = objectMapper.writerFor(AccountImportResult.class);
+        this.accountLinks = accountLinks;
+        this.accountPageWriter = accountPageWriter;
+        this.accountExportService = accountExportService;
+        this.accountWriteBehind = accountWriteBehind;
     }
 
     @PostMapping
     public ResponseEntity createAccount(@RequestBody @Valid @CurrentUser Account account,
                                         Errors errors) {
+        accountValidator.validateEmail(account, errors);
         if(errors.hasErrors())
             return badRequest(errors);
 
-        accountValidator.validate(account, errors);
-
-        if(errors.hasErrors())
+        Account newAccount;
+        try {
+            newAccount = this.accountService.createAccount(account);
+        } catch (DataIntegrityViolationException e) {
+            if(!this.accountService.existsUser(account))
+                throw e;
+            accountValidator.rejectDuplicate(account, errors);
             return badRequest(errors);
-
-        Account newAccount = this.accountService.saveAccount(account);
-        ControllerLinkBuilder linkBuilder = linkTo(AccountController.class).slash(newAccount.getEmail());
-        URI createUri = linkBuilder.toUri();
-        AccountResource accountResource = new AccountResource(account);
-        accountResource.add(linkTo(AccountController.class).withRel("query-accounts"));
+        }
+        Link selfLink = accountLinks.self(newAccount);
+        URI createUri = URI.create(selfLink.getHref());
+        AccountResource accountResource = new AccountResource(account, selfLink);
+        accountResource.add(accountLinks.accounts("query-accounts"));
         accountResource.add(new Link("/docs/index.html#resources-accounts-create").withRel("profile"));
         return ResponseEntity.created(createUri).body(accountResource);
     }
 
+    /**
+     * NDJSON 또는 CSV 로 여러 계정을 한 번에 등록한다. 결과는 배치가 끝날 때마다 한 줄씩 NDJSON 으로 흘려보낸다.
+     */
+    @PostMapping(value = "/import",
+            consumes = {AccountImportService.NDJSON_VALUE, AccountImportService.CSV_VALUE},
+            produces = AccountImportService.NDJSON_VALUE)
+    public void importAccounts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                               HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), charset));
+
+        response.setContentType(AccountImportService.NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        try {
+            this.accountImportService.importAccounts(reader, contentType, results -> {
+                try {
+                    for (AccountImportResult result : results) {
+                        out.write(importResultWriter.writeValueAsBytes(result));
+                        out.write('\n');
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 목록 버전(행 수, 최근 updatedAt)을 먼저 조회해서 조건부 요청이면 304 로 답한다.
+     * 행 수는 페이지의 전체 수로도 쓰므로 count 쿼리는 따로 실행하지 않는다.
+     */
     @GetMapping
     public ResponseEntity queryAccounts(Pageable pageable,
-                                        PagedResourcesAssembler<Account> assembler,
-                                        @CurrentUser Account currentUser){
-        Page<Account> accounts = this.accountRepository.findAll(pageable);
-        var accountResource = assembler.toResource(accounts, e -> new AccountResource(e));
+                                        PagedResourcesAssembler<AccountSummary> assembler,
+                                        @CurrentUser Account currentUser,
+                                        ServletWebRequest webRequest){
+        AccountListVersion version = this.accountRepository.findListVersion();
+        if (webRequest.checkNotModified(version.getETag(), version.getLastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        List<AccountSummary> content = pageable.getOffset() < version.getCount()
+                ? this.accountRepository.findSummaries(pageable)
+                : List.of();
+        Page<AccountSummary> accounts = new PageImpl<>(content, pageable, version.getCount());
+        var accountResource = assembler.toResource(accounts, e -> new AccountSummaryResource(e, accountLinks.self(e)));
         accountResource.add(new Link("/docs/index.html#resources-accounts-list").withRel("profile"));
         if(currentUser != null) {
-            accountResource.add(linkTo(AccountController.class).withRel("create-account"));
+            accountResource.add(accountLinks.accounts("create-account"));
+        }
+        return withVersion(ResponseEntity.ok(), version.getETag(), version.getLastModified()).body(accountResource);
+    }
+
+    /**
+     * 모든 계정을 NDJSON(기본) 또는 CSV(Accept: text/csv) 로 내보낸다. Accept-Encoding 에 gzip 이 있으면 압축한다.
+     * If-Modified-Since 가 있으면 그 이후에 변경된 계정만 내보내고, 변경된 계정이 없으면 304 를 돌려준다.
+     */
+    @GetMapping(value = "/export", produces = {AccountImportService.NDJSON_VALUE, AccountImportService.CSV_VALUE})
+    public void exportAccounts(@RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = AccountImportService.NDJSON_VALUE) String accept,
+                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding,
+                               ServletWebRequest webRequest,
+                               HttpServletResponse response) throws IOException {
+        Instant lastModified = this.accountExportService.lastModified();
+        if (lastModified != null && webRequest.checkNotModified(lastModified.toEpochMilli())) {
+            return;
+        }
+        long ifModifiedSince = webRequest.getRequest().getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        Instant since = ifModifiedSince < 0 ? null : Instant.ofEpochMilli(ifModifiedSince);
+
+        MediaType csv = MediaType.parseMediaType(AccountImportService.CSV_VALUE);
+        boolean isCsv = MediaType.parseMediaTypes(accept).stream().anyMatch(csv::equalsTypeAndSubtype);
+        response.setContentType(isCsv ? AccountImportService.CSV_VALUE + ";charset=UTF-8" : AccountImportService.NDJSON_VALUE);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding.contains("gzip");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        try (OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream()) : response.getOutputStream()) {
+            this.accountExportService.exportAccounts(since, isCsv, out);
+        }
+    }
+
+    /**
+     * queryAccounts 와 같은 HAL 응답을 페이지 객체를 만들지 않고 한 행씩 써서 보낸다. 큰 size 로 조회할 때 쓴다.
+     */
+    @GetMapping(params = "stream=true")
+    public void streamAccounts(Pageable pageable,
+                               PagedResourcesAssembler<AccountSummary> assembler,
+                               @CurrentUser Account currentUser,
+                               HttpServletResponse response) throws IOException {
+        List<Link> links = new ArrayList<>();
+        links.add(new Link("/docs/index.html#resources-accounts-list").withRel("profile"));
+        if(currentUser != null) {
+            links.add(accountLinks.accounts("create-account"));
+        }
+        response.setContentType(MediaTypes.HAL_JSON_UTF8_VALUE);
+        this.accountPageWriter.write(pageable, assembler, links, response.getOutputStream());
+    }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity queryAccountsByCursor(@RequestParam String cursor,
+                                                @RequestParam(defaultValue = "false") boolean count,
+                                                Pageable pageable,
+                                                @CurrentUser Account currentUser){
+        AccountCursor accountCursor;
+        try {
+            accountCursor = cursor.isEmpty() ? AccountCursor.first(pageable.getSort()) : AccountCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int size = pageable.getPageSize();
+        List<AccountSummary> accounts = this.accountRepository.findAfter(accountCursor, size + 1);
+        boolean hasNext = accounts.size() > size;
+        if (hasNext) {
+            accounts = accounts.subList(0, size);
+        }
+
+        List<AccountSummaryResource> content = accounts.stream()
+                .map(account -> new AccountSummaryResource(account, accountLinks.self(account)))
+                .collect(Collectors.toList());
+        Long totalElements = count ? this.accountRepository.count() : null;
+        var accountResources = new AccountCursorResources(content, totalElements,
+                new Link(ServletUriComponentsBuilder.fromCurrentRequest().toUriString()).withSelfRel());
+        if (hasNext) {
+            String next = accountCursor.next(accounts.get(accounts.size() - 1)).encode();
+            accountResources.add(new Link(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", next)
+                    .replaceQueryParam("size", size)
+                    .replaceQueryParam("sort")
+                    .replaceQueryParam("page")
+                    .toUriString()).withRel(Link.REL_NEXT));
+        }
+        accountResources.add(new Link("/docs/index.html#resources-accounts-list").withRel("profile"));
+        if(currentUser != null) {
+            accountResources.add(accountLinks.accounts("create-account"));
         }
-        return ResponseEntity.ok(accountResource);
+        return ResponseEntity.ok(accountResources);
     }
 
+    /**
+     * 조건부 요청이면 version 과 updatedAt 만 조회해서 바뀌지 않았을 때 엔티티와 AccountResource 없이 304 로 답한다.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity getAccount(@PathVariable Integer id, @CurrentUser Account currentUser){
+    public ResponseEntity getAccount(@PathVariable Integer id, @CurrentUser Account currentUser, ServletWebRequest webRequest){
+        if (isConditional(webRequest)) {
+            Optional<AccountVersion> version = this.accountRepository.findVersionById(id);
+            if (version.isPresent() && webRequest.checkNotModified(version.get().getETag(), version.get().getLastModified())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+        }
         Optional<Account> accountOptional = this.accountRepository.findById(id);
         if(accountOptional.isEmpty()){
             return ResponseEntity.notFound().build();
         }
         Account account = accountOptional.get();
-        AccountResource accountResource = new AccountResource(account);
+        AccountResource accountResource = new AccountResource(account, accountLinks.self(account));
         accountResource.add(new Link("/docs/index.html#resources-accounts-get").withRel("profile"));
-        if(currentUser.getRoles().contains(AccountRole.ADMIN)){
-            accountResource.add(linkTo(AccountController.class).slash(account.getId()).withRel("update-account"));
+        if(currentUser.hasRole(AccountRole.ADMIN)){
+            accountResource.add(accountLinks.account(account.getId(), "update-account"));
         }
 
-        return ResponseEntity.ok(accountResource);
+        return withVersion(ResponseEntity.ok(), AccountVersion.of(account)).body(accountResource);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity updateAccount(@PathVariable Integer id,
                                         @RequestBody @Valid Account account,
                                         Errors errors,
+                                        @RequestHeader(value = PREFER, required = false) String prefer,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                         @CurrentUser Account currentUser){
+        return update(id, account, errors, prefer, ifMatch, currentUser);
+    }
 
+    /**
+     * 본문에 있는(null 이 아닌) 속성만 수정한다. 바뀐 컬럼만 update 된다.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity patchAccount(@PathVariable Integer id,
+                                       @RequestBody @Valid Account changes,
+                                       Errors errors,
+                                       @RequestHeader(value = PREFER, required = false) String prefer,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                       @CurrentUser Account currentUser){
+        return update(id, changes, errors, prefer, ifMatch, currentUser);
+    }
+
+    /**
+     * If-Match 가 있으면 현재 version("version")과 맞지 않을 때 412 로 거절한다. 확인한 뒤 다른 요청이 먼저 저장하면
+     * @Version 검사에서 ObjectOptimisticLockingFailureException 이 나므로 역시 412 로 답한다.
+     * write-behind 의 batch update 는 version 을 확인하지 않으므로 If-Match 가 있는 수정은 항상 바로 저장한다.
+     */
+    private ResponseEntity update(Integer id, Account changes, Errors errors, String prefer, String ifMatch, Account currentUser) {
         Optional<Account> accountOptional = this.accountRepository.findById(id);
         if(accountOptional.isEmpty()){
             return ResponseEntity.notFound().build();
@@ -102,18 +315,99 @@ public class AccountController {
             return badRequest(errors);
         }
 
+        Account existing = accountOptional.get();
+        if(ifMatch != null && !AccountVersion.of(existing).matches(ifMatch)){
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        if(ifMatch == null && this.accountWriteBehind.isEnabled() && prefersRespondAsync(prefer) && isProfileUpdate(existing, changes)){
+            return acceptUpdate(existing, changes, currentUser);
+        }
+
         //TODO : 현재 사용자의 권한 체크 (본인계정 이거나 관리자만 수정가능)
-        this.accountService.saveAccount(account);
+        Account account;
+        try {
+            account = this.accountService.updateAccount(existing, changes);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (DataIntegrityViolationException e) {
+            if(!this.accountService.existsUser(changes))
+                throw e;
+            accountValidator.rejectDuplicate(changes, errors);
+            return badRequest(errors);
+        }
 
-        AccountResource accountResource = new AccountResource(account);
+        AccountResource accountResource = new AccountResource(account, accountLinks.self(account));
         accountResource.add(new Link("/docs/index.html#resources-accounts-update").withRel("profile"));
-        if(currentUser.getRoles().contains(AccountRole.ADMIN)){
-            accountResource.add(linkTo(AccountController.class).slash(account.getId()).withRel("get-account"));
+        if(currentUser.hasRole(AccountRole.ADMIN)){
+            accountResource.add(accountLinks.account(account.getId(), "get-account"));
         }
 
-        return ResponseEntity.ok(accountResource);
+        return withVersion(ResponseEntity.ok(), AccountVersion.of(account)).body(accountResource);
     }
 
+    /**
+     * Prefer: respond-async 인 프로필(name, roles) 수정은 AccountWriteBehind 에 넘기고 202 로 답한다.
+     * 본문은 받아들인 상태이며, 실제로 저장되는 것은 다음 flush 때다.
+     */
+    private ResponseEntity acceptUpdate(Account existing, Account changes, Account currentUser) {
+        this.accountWriteBehind.enqueue(existing, changes);
+
+        Account accepted = Account.builder()
+                .id(existing.getId())
+                .email(existing.getEmail())
+                .name(changes.getName() != null ? changes.getName() : existing.getName())
+                .roles(changes.getRoles() != null ? changes.getRoles() : existing.getRoles())
+                .updatedAt(existing.getUpdatedAt())
+                .build();
+        AccountResource accountResource = new AccountResource(accepted, accountLinks.self(accepted));
+        accountResource.add(new Link("/docs/index.html#resources-accounts-update").withRel("profile"));
+        if(currentUser.hasRole(AccountRole.ADMIN)){
+            accountResource.add(accountLinks.account(accepted.getId(), "get-account"));
+        }
+        return ResponseEntity.accepted()
+                .header(PREFERENCE_APPLIED, RESPOND_ASYNC)
+                .body(accountResource);
+    }
+
+    private static boolean prefersRespondAsync(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            if (preference.trim().equalsIgnoreCase(RESPOND_ASYNC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 이메일이나 비밀번호가 바뀌면 중복 검사와 해시가 필요하므로 동기 경로로 처리한다.
+     */
+    private static boolean isProfileUpdate(Account existing, Account changes) {
+        return (changes.getEmail() == null || changes.getEmail().equals(existing.getEmail()))
+                && (!StringUtils.hasLength(changes.getPassword()) || changes.getPassword().equals(existing.getPassword()));
+    }
+
+    private static boolean isConditional(ServletWebRequest webRequest) {
+        return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    private static ResponseEntity.BodyBuilder withVersion(ResponseEntity.BodyBuilder builder, AccountVersion version) {
+        return withVersion(builder, version.getETag(), version.getLastModified());
+    }
+
+    /**
+     * 관리자에게만 수정 링크가 붙는 등 사용자마다 본문이 다르므로 Vary: Authorization 을 함께 보낸다.
+     */
+    private static ResponseEntity.BodyBuilder withVersion(ResponseEntity.BodyBuilder builder, String eTag, long lastModified) {
+        builder.eTag(eTag).varyBy(HttpHeaders.AUTHORIZATION);
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
 
     private ResponseEntity badRequest(Errors errors) {
         return ResponseEntity.badRequest().body(new ErrorResource(errors));
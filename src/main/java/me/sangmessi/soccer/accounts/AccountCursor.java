@@ -0,0 +1,81 @@
+package me.sangmessi.soccer.accounts;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * keyset 페이징의 위치(정렬 키, 정렬 방향, 마지막 정렬 키 값과 id)를 담는 불투명 커서.
+ * 인덱스가 있는 id, email 로만 정렬할 수 있다.
+ */
+public class AccountCursor {
+
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "email");
+
+    private static final String SEPARATOR = ",";
+
+    private final String property;
+
+    private final Sort.Direction direction;
+
+    private final Integer lastId;
+
+    private final String lastValue;
+
+    private AccountCursor(String property, Sort.Direction direction, Integer lastId, String lastValue) {
+        this.property = property;
+        this.direction = direction;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    public static AccountCursor first(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                return new AccountCursor(order.getProperty(), order.getDirection(), null, null);
+            }
+        }
+        return new AccountCursor("id", Sort.Direction.ASC, null, null);
+    }
+
+    public static AccountCursor decode(String cursor) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = decoded.split(SEPARATOR, 4);
+        if (parts.length != 4 || !SORTABLE_PROPERTIES.contains(parts[0])) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new AccountCursor(parts[0], Sort.Direction.fromString(parts[1]), Integer.valueOf(parts[2]), parts[3]);
+    }
+
+    public AccountCursor next(AccountSummary last) {
+        String value = "id".equals(property) ? String.valueOf(last.getId()) : last.getEmail();
+        return new AccountCursor(property, direction, last.getId(), value);
+    }
+
+    public String encode() {
+        String raw = property + SEPARATOR + direction.name() + SEPARATOR + lastId + SEPARATOR + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Integer getLastId() {
+        return lastId;
+    }
+
+    public String getLastValue() {
+        return lastValue;
+    }
+}
@@ -0,0 +1,20 @@
+package me.sangmessi.soccer.accounts;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Resources;
+
+public class AccountCursorResources extends Resources<AccountSummaryResource> {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Long totalElements;
+
+    public AccountCursorResources(Iterable<AccountSummaryResource> content, Long totalElements, Link... links) {
+        super(content, links);
+        this.totalElements = totalElements;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+}
@@ -0,0 +1,147 @@
+package me.sangmessi.soccer.accounts;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import me.sangmessi.soccer.configs.AppProperties;
+import me.sangmessi.soccer.ratelimit.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 등록된 모든 이메일의 Bloom filter (my-app.email-filter.*). 로그인 경로에서 없을 것 같은 이메일은 DB 조회 없이 거절한다.
+ * 시작할 때 email 컬럼을 forward-only 커서로 훑어 만들고, 새 계정은 AccountEmailListener 가 커밋 후 추가한다.
+ * Bloom filter 는 지울 수 없으므로 삭제되거나 바뀐 이메일을 털어내도록 rebuild-interval 마다 새로 만든다.
+ * 만들어지기 전이나 꺼져 있으면 항상 "있을 수 있음"으로 답한다.
+ *
+ * 필터는 JVM 마다 따로 있어서 다른 노드에서 가입한 계정은 다음 rebuild 전까지 모른다.
+ * 그래서 필터에 없다는 답은 "아마 없음"으로만 쓰고, 초당 miss-confirmations-per-second 건까지는 DB 로 확인한다.
+ * 확인해서 찾은 이메일은 필터에 추가된다(AccountService).
+ * 기본값은 꺼져 있다. 켜도 여러 노드에서 안전하다. 필터에 없다는 답은 miss-confirmations-per-second 만큼 DB 로 확인하기 때문이다.
+ */
+@Component
+public class AccountEmailFilter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountEmailFilter.class);
+
+    private static final int FETCH_SIZE = 1_000;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final AppProperties.EmailFilter properties;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong confirmed = new AtomicLong();
+
+    private final TokenBucket missConfirmations;
+
+    private volatile EmailBloomFilter filter;
+
+    private volatile EmailBloomFilter building;
+
+    public AccountEmailFilter(AppProperties appProperties) {
+        this.properties = appProperties.getEmailFilter();
+        double confirmationsPerSecond = properties.getMissConfirmationsPerSecond();
+        this.missConfirmations = confirmationsPerSecond > 0
+                ? new TokenBucket((long) (TimeUnit.SECONDS.toNanos(1) / confirmationsPerSecond),
+                        (int) Math.max(1, Math.ceil(confirmationsPerSecond)), Long.MIN_VALUE)
+                : null;
+    }
+
+    /**
+     * 필터에 있거나, 없더라도 DB 확인 한도가 남아 있으면 true. 한도를 넘은 miss 만 false 로 거절한다.
+     */
+    public boolean mightExist(String email) {
+        EmailBloomFilter filter = this.filter;
+        if (filter == null || email == null || filter.mightContain(email)) {
+            return true;
+        }
+        if (missConfirmations != null && missConfirmations.tryAcquire(System.nanoTime()) == 0) {
+            confirmed.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 커밋된 계정의 이메일만 넣어야 한다. building 을 filter 보다 먼저 읽어서, rebuild 가 교체하는 순간과 겹쳐도
+     * 스캔에 보이지 않은 이메일(스캔 시작 뒤 커밋)은 building(곧 filter)이나 이미 교체된 filter 에 들어간다.
+     */
+    public void add(String email) {
+        if (email == null) {
+            return;
+        }
+        EmailBloomFilter building = this.building;
+        if (building != null) {
+            building.put(email);
+        }
+        EmailBloomFilter filter = this.filter;
+        if (filter != null) {
+            filter.put(email);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        rebuild();
+    }
+
+    /**
+     * 새 filter 를 먼저 building 에 걸어 두고 훑는다. 스캔이 시작된 뒤 커밋된 계정은 add 에서 building 에 들어가고,
+     * 그 전에 커밋된 계정은 스캔에 보인다. filter 를 바꾼 뒤에 building 을 비운다.
+     */
+    @Scheduled(fixedDelayString = "${my-app.email-filter.rebuild-interval:PT1H}", initialDelayString = "${my-app.email-filter.rebuild-interval:PT1H}")
+    public synchronized void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        EmailBloomFilter next = new EmailBloomFilter(properties.getExpectedAccounts(), properties.getFalsePositiveRate());
+        this.building = next;
+        long[] count = {0};
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("select email from account",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            }, rs -> {
+                next.put(rs.getString(1));
+                count[0]++;
+            });
+            this.filter = next;
+        } finally {
+            this.building = null;
+        }
+        if (count[0] > properties.getExpectedAccounts()) {
+            log.warn("Account email filter holds {} emails, more than expected-accounts {}; false positives will exceed {}",
+                    count[0], properties.getExpectedAccounts(), properties.getFalsePositiveRate());
+        }
+        log.info("Built account email filter: {} emails, {} bits, {} hash functions in {} ms",
+                count[0], next.bitSize(), next.hashFunctions(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("accounts.email.filter.rejected", rejected, AtomicLong::get)
+                .description("Logins rejected by the email filter without a database lookup")
+                .register(registry);
+        FunctionCounter.builder("accounts.email.filter.confirmed", confirmed, AtomicLong::get)
+                .description("Email filter misses checked against the database")
+                .register(registry);
+    }
+}
@@ -0,0 +1,38 @@
+package me.sangmessi.soccer.accounts;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostUpdate;
+
+/**
+ * 저장되거나 이메일이 바뀐 계정을 AccountEmailFilter 에 추가한다. saveAccount, 일괄 등록, 리포지토리 직접 저장 모두 여기를 지난다.
+ * PostPersist 는 flush 때 불리므로 트랜잭션이 커밋된 뒤(afterCommit)에 추가한다. 커밋 전에 넣으면 그 사이에 시작한
+ * rebuild 스캔이 아직 보이지 않는 행을 빠뜨린 채 filter 를 바꿔 버린다.
+ * Hibernate 가 스프링 빈으로 만들어 주입한다(SpringBeanContainer).
+ */
+@Component
+public class AccountEmailListener {
+
+    @Autowired
+    AccountEmailFilter accountEmailFilter;
+
+    @PostPersist
+    @PostUpdate
+    public void addEmail(Account account) {
+        String email = account.getEmail();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accountEmailFilter.add(email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                accountEmailFilter.add(email);
+            }
+        });
+    }
+}
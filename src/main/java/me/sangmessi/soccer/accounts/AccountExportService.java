@@ -0,0 +1,176 @@
+package me.sangmessi.soccer.accounts;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.sangmessi.soccer.configs.AppProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 모든 계정을 NDJSON 또는 CSV 로 내보낸다.
+ * 엔티티나 영속성 컨텍스트를 거치지 않고 forward-only JDBC 커서로 fetch-size 행씩 읽어 바로 출력에 쓰므로
+ * 메모리에는 fetch 한 번 분량만 남는다. 비밀번호는 내보내지 않는다.
+ */
+@Service
+public class AccountExportService {
+
+    public static final String CSV_HEADER = "id,email,name,roles,updatedAt";
+
+    private static final String SELECT = "select id, email, name, roles, updated_at from account";
+
+    private static final AccountRolesConverter ROLES_CONVERTER = new AccountRolesConverter();
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    AppProperties appProperties;
+
+    /**
+     * 가장 최근에 변경된 계정의 updated_at. 계정이 없으면 null.
+     */
+    @Transactional(readOnly = true)
+    public Instant lastModified() {
+        Timestamp lastModified = this.jdbcTemplate.queryForObject("select max(updated_at) from account", Timestamp.class);
+        return lastModified == null ? null : lastModified.toInstant();
+    }
+
+    /**
+     * since 가 있으면 그 시각 이후(같은 초 포함)에 변경된 계정만 내보낸다.
+     */
+    @Transactional(readOnly = true)
+    public void exportAccounts(Instant since, boolean csv, OutputStream out) throws IOException {
+        RowWriter writer = csv ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        try {
+            query(since, rs -> {
+                try {
+                    writer.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.close();
+    }
+
+    private void query(Instant since, RowCallbackHandler handler) {
+        int fetchSize = this.appProperties.getAccountExport().getFetchSize();
+        String sql = since == null ? SELECT + " order by id" : SELECT + " where updated_at >= ? order by id";
+        this.jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            if (since != null) {
+                ps.setTimestamp(1, Timestamp.from(since));
+            }
+            return ps;
+        }, handler);
+    }
+
+    private static Set<AccountRole> roles(ResultSet rs) throws SQLException {
+        return ROLES_CONVERTER.convertToEntityAttribute(rs.getInt("roles"));
+    }
+
+    private static Instant updatedAt(ResultSet rs) throws SQLException {
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return updatedAt == null ? null : updatedAt.toInstant();
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void close() throws IOException;
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator gen;
+
+        private NdjsonRowWriter(OutputStream out) throws IOException {
+            this.gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            this.gen.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("id", rs.getInt("id"));
+            gen.writeStringField("email", rs.getString("email"));
+            gen.writeStringField("name", rs.getString("name"));
+            gen.writeArrayFieldStart("roles");
+            for (AccountRole role : roles(rs)) {
+                gen.writeString(role.name());
+            }
+            gen.writeEndArray();
+            Instant updatedAt = updatedAt(rs);
+            gen.writeStringField("updatedAt", updatedAt == null ? null : updatedAt.toString());
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            gen.close();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.writer.write(CSV_HEADER);
+            this.writer.write('\n');
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            Instant updatedAt = updatedAt(rs);
+            writer.write(String.valueOf(rs.getInt("id")));
+            writer.write(',');
+            writer.write(csv(rs.getString("email")));
+            writer.write(',');
+            writer.write(csv(rs.getString("name")));
+            writer.write(',');
+            writer.write(roles(rs).stream().map(AccountRole::name).collect(Collectors.joining("|")));
+            writer.write(',');
+            writer.write(updatedAt == null ? "" : updatedAt.toString());
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+
+        /**
+         * AccountImportService.readCsvRecord 가 읽을 수 있도록 쉼표, 따옴표, 줄바꿈이 있으면 큰따옴표로 감싼다.
+         */
+        private static String csv(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package me.sangmessi.soccer.accounts;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 일괄 등록 요청의 한 줄에 대한 처리 결과. 응답 본문에 한 줄씩 NDJSON 으로 기록된다.
+ */
+@Getter @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AccountImportResult {
+
+    public enum Status {
+        CREATED, REJECTED
+    }
+
+    private int line;
+    private Status status;
+    private Integer id;
+    private String email;
+    private String message;
+
+    static AccountImportResult created(int line, Account account) {
+        return new AccountImportResult(line, Status.CREATED, account.getId(), account.getEmail(), null);
+    }
+
+    static AccountImportResult rejected(int line, String email, String message) {
+        return new AccountImportResult(line, Status.REJECTED, null, email, message);
+    }
+}
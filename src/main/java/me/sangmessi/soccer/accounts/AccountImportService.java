@@ -0,0 +1,290 @@
+package me.sangmessi.soccer.accounts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.sangmessi.soccer.configs.AppProperties;
+import me.sangmessi.soccer.passwords.HashingPasswordEncoder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * NDJSON 또는 CSV 로 받은 계정을 batch-size 줄 단위로 등록한다.
+ * 배치마다 이메일 중복은 한 번의 in 쿼리로 확인하고, 비밀번호는 해시 스레드 풀에서 나눠 해시한 뒤 saveAll 로 JDBC batch insert 한다.
+ * 해시 대기열이 가득 차면(로그인이 몰릴 때) 줄을 거절하지 않고 기다린다.
+ */
+@Service
+public class AccountImportService {
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    public static final String CSV_VALUE = "text/csv";
+
+    private static final MediaType CSV = MediaType.parseMediaType(CSV_VALUE);
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    HashingPasswordEncoder passwordEncoder;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    AppProperties appProperties;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * 배치 하나가 끝날 때마다 그 배치의 결과를 줄 순서대로 listener 에 넘긴다.
+     * CSV 는 첫 줄이 헤더(email,password,name,roles)이며 roles 는 '|' 로 구분한다.
+     * 큰따옴표로 감싼 값 안의 줄바꿈은 값에 그대로 남기고, 결과의 line 은 그 행이 시작한 줄 번호다.
+     */
+    public void importAccounts(BufferedReader reader, MediaType contentType,
+                               Consumer<List<AccountImportResult>> listener) throws IOException {
+        int batchSize = appProperties.getAccountImport().getBatchSize();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+
+        int lineNumber = 0;
+        Map<String, Integer> header = null;
+        if (CSV.isCompatibleWith(contentType)) {
+            String headerLine = readCsvRecord(reader);
+            lineNumber++;
+            if (headerLine == null) {
+                return;
+            }
+            header = csvHeader(headerLine);
+        }
+
+        String line;
+        while ((line = header == null ? reader.readLine() : readCsvRecord(reader)) != null) {
+            lineNumber++;
+            int startLine = lineNumber;
+            lineNumber += lineBreaks(line);
+            if (line.isBlank()) {
+                continue;
+            }
+            batch.add(header == null ? jsonRow(startLine, line) : csvRow(startLine, line, header));
+            if (batch.size() == batchSize) {
+                listener.accept(importBatch(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            listener.accept(importBatch(batch));
+        }
+    }
+
+    private List<AccountImportResult> importBatch(List<ImportRow> rows) {
+        Map<String, ImportRow> candidates = new LinkedHashMap<>();
+        for (ImportRow row : rows) {
+            if (row.result != null) {
+                continue;
+            }
+            String email = row.account.getEmail();
+            if (!StringUtils.hasText(email) || !StringUtils.hasText(row.account.getPassword())) {
+                row.reject("email and password are required");
+            } else if (candidates.containsKey(email)) {
+                row.reject("Duplicated email in request (" + email + ")");
+            } else {
+                candidates.put(email, row);
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            for (String email : accountRepository.findExistingEmails(candidates.keySet())) {
+                candidates.remove(email).reject(alreadyRegistered(email));
+            }
+        }
+
+        List<ImportRow> accepted = new ArrayList<>(candidates.values());
+        if (!accepted.isEmpty()) {
+            List<String> encoded = passwordEncoder.encodeAll(accepted.stream()
+                    .map(row -> row.account.getPassword())
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < accepted.size(); i++) {
+                accepted.get(i).account.setPassword(encoded.get(i));
+            }
+            save(accepted);
+        }
+
+        return rows.stream().map(row -> row.result).collect(Collectors.toList());
+    }
+
+    private void save(List<ImportRow> rows) {
+        try {
+            accountRepository.saveAll(rows.stream().map(row -> row.account).collect(Collectors.toList()));
+            rows.forEach(row -> row.result = AccountImportResult.created(row.line, row.account));
+        } catch (DataIntegrityViolationException e) {
+            // 조회 이후 다른 요청이 같은 이메일을 먼저 등록한 경우: 배치 전체가 롤백되므로 한 건씩 다시 저장한다.
+            entityManager.clear();
+            rows.forEach(this::saveOne);
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+    private void saveOne(ImportRow row) {
+        row.account.setId(null);
+        try {
+            Account saved = accountRepository.save(row.account);
+            row.result = AccountImportResult.created(row.line, saved);
+        } catch (DataIntegrityViolationException e) {
+            row.reject(alreadyRegistered(row.account.getEmail()));
+        }
+    }
+
+    private ImportRow jsonRow(int line, String json) {
+        try {
+            Account account = objectMapper.readValue(json, Account.class);
+            account.setId(null);
+            return new ImportRow(line, withDefaultRoles(account));
+        } catch (IOException e) {
+            return ImportRow.rejected(line, "Malformed JSON");
+        }
+    }
+
+    private ImportRow csvRow(int line, String csv, Map<String, Integer> header) {
+        List<String> values = parseCsvLine(csv);
+        try {
+            Set<AccountRole> roles = new HashSet<>();
+            for (String role : StringUtils.tokenizeToStringArray(csvValue(values, header, "roles"), "|")) {
+                roles.add(AccountRole.valueOf(role));
+            }
+            Account account = Account.builder()
+                    .email(csvValue(values, header, "email"))
+                    .password(csvValue(values, header, "password"))
+                    .name(csvValue(values, header, "name"))
+                    .roles(roles)
+                    .build();
+            return new ImportRow(line, withDefaultRoles(account));
+        } catch (IllegalArgumentException e) {
+            return ImportRow.rejected(line, "Unknown role");
+        }
+    }
+
+    private static Account withDefaultRoles(Account account) {
+        if (account.getRoles() == null || account.getRoles().isEmpty()) {
+            account.setRoles(Set.of(AccountRole.USER));
+        }
+        return account;
+    }
+
+    private static String alreadyRegistered(String email) {
+        return "This account has already been registered (" + email + ")";
+    }
+
+    private static Map<String, Integer> csvHeader(String line) {
+        List<String> columns = parseCsvLine(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim().toLowerCase(), i);
+        }
+        return header;
+    }
+
+    private static String csvValue(List<String> values, Map<String, Integer> header, String column) {
+        Integer index = header.get(column);
+        return index == null || index >= values.size() ? null : values.get(index);
+    }
+
+    /**
+     * 따옴표 밖의 줄바꿈(\n, \r\n, \r)까지 한 행을 읽는다. 따옴표 안의 줄바꿈은 그대로 남긴다. 더 읽을 행이 없으면 null.
+     */
+    static String readCsvRecord(BufferedReader reader) throws IOException {
+        StringBuilder record = new StringBuilder();
+        boolean quoted = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (!quoted && c == '\n') {
+                return record.toString();
+            }
+            if (!quoted && c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                return record.toString();
+            }
+            if (c == '"') {
+                quoted = !quoted;
+            }
+            record.append((char) c);
+        }
+        return record.length() == 0 ? null : record.toString();
+    }
+
+    private static int lineBreaks(String record) {
+        int count = 0;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 == record.length() || record.charAt(i + 1) != '\n'))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 큰따옴표로 감싼 값과 그 안의 "" 이스케이프만 지원하는 단순 CSV 파서.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static final class ImportRow {
+        private final int line;
+        private final Account account;
+        private AccountImportResult result;
+
+        private ImportRow(int line, Account account) {
+            this.line = line;
+            this.account = account;
+        }
+
+        private static ImportRow rejected(int line, String message) {
+            ImportRow row = new ImportRow(line, null);
+            row.reject(message);
+            return row;
+        }
+
+        private void reject(String message) {
+            this.result = AccountImportResult.rejected(line, account == null ? null : account.getEmail(), message);
+        }
+    }
+}
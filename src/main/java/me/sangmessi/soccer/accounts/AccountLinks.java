@@ -0,0 +1,50 @@
+package me.sangmessi.soccer.accounts;
+
+import org.springframework.hateoas.Link;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+/**
+ * 계정 링크를 만든다. linkTo(AccountController.class) 로 기준 URI 를 요청마다 한 번만 계산해 요청 속성에 두고,
+ * 각 계정의 링크는 그 뒤에 경로를 붙여 만든다.
+ */
+@Component
+public class AccountLinks {
+
+    private static final String BASE_URI_ATTRIBUTE = AccountLinks.class.getName() + ".BASE_URI";
+
+    public Link self(Account account) {
+        return account(account.getEmail(), Link.REL_SELF);
+    }
+
+    public Link self(AccountSummary account) {
+        return account(account.getEmail(), Link.REL_SELF);
+    }
+
+    public Link account(Object pathSegment, String rel) {
+        return new Link(baseUri() + "/" + UriUtils.encodePathSegment(String.valueOf(pathSegment), StandardCharsets.UTF_8), rel);
+    }
+
+    public Link accounts(String rel) {
+        return new Link(baseUri(), rel);
+    }
+
+    String baseUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return linkTo(AccountController.class).toUri().toString();
+        }
+        String baseUri = (String) attributes.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = linkTo(AccountController.class).toUri().toString();
+            attributes.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUri;
+    }
+}
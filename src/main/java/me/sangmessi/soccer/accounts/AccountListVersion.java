@@ -0,0 +1,30 @@
+package me.sangmessi.soccer.accounts;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * 계정 목록 전체의 버전: 행 수와 가장 최근 updatedAt. 추가, 수정, 삭제 중 하나라도 있으면 바뀐다.
+ * 시각에 기대므로 약한 ETag 로 내보낸다. 페이지와 정렬은 URL 에 있으므로 ETag 에 넣지 않는다.
+ */
+@Getter
+public class AccountListVersion {
+
+    private final long count;
+
+    private final Instant lastUpdatedAt;
+
+    public AccountListVersion(long count, Instant lastUpdatedAt) {
+        this.count = count;
+        this.lastUpdatedAt = lastUpdatedAt;
+    }
+
+    public String getETag() {
+        return "W/\"" + count + "-" + getLastModified() + "\"";
+    }
+
+    public long getLastModified() {
+        return lastUpdatedAt == null ? -1 : lastUpdatedAt.toEpochMilli();
+    }
+}
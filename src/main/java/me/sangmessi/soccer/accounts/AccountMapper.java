@@ -0,0 +1,55 @@
+package me.sangmessi.soccer.accounts;
+
+import org.mapstruct.*;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * AccountDto 와 Account 사이의 매핑. 구현은 컴파일할 때 MapStruct 가 만들며(AccountMapperImpl),
+ * 매핑되지 않은 속성이 있으면 컴파일 에러가 난다.
+ */
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface AccountMapper {
+
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    Account toAccount(AccountDto accountDto);
+
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "roles", expression = "java(copyRoles(accountDto.getRoles()))")
+    void updateAccount(AccountDto accountDto, @MappingTarget Account account);
+
+    AccountDto toDto(Account account);
+
+    /**
+     * PATCH: changes 에서 null 이 아닌 속성만 account 에 옮긴다. 비밀번호는 AccountService 가 따로 다룬다.
+     */
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void patchAccount(Account changes, @MappingTarget Account account);
+
+    @AfterMapping
+    default void patchRoles(Account changes, @MappingTarget Account account) {
+        if (changes.getRoles() != null) {
+            account.setRoles(copyRoles(changes.getRoles()));
+        }
+    }
+
+    /**
+     * roles 는 EnumSet 으로 복사한다. updateAccount 에서는 대상이 Set.of 같은 불변 Set 일 수 있어 clear/addAll 대신 새 Set 으로 바꾼다.
+     */
+    default Set<AccountRole> copyRoles(Set<AccountRole> roles) {
+        if (roles == null) {
+            return null;
+        }
+        Set<AccountRole> copy = EnumSet.noneOf(AccountRole.class);
+        copy.addAll(roles);
+        return copy;
+    }
+}
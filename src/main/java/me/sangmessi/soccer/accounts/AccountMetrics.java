@@ -0,0 +1,58 @@
+package me.sangmessi.soccer.accounts;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccountService 의 타이머. 호출마다 태그로 조회하지 않도록 시작할 때 모두 등록해 둔다.
+ * accounts.load 는 source(cache/database) 와 result(success/failure), 나머지는 result 태그만 가진다.
+ */
+@Component
+public class AccountMetrics {
+
+    private final Timer loadCacheSuccess;
+    private final Timer loadCacheFailure;
+    private final Timer loadDatabaseSuccess;
+    private final Timer loadDatabaseFailure;
+    private final Timer saveSuccess;
+    private final Timer saveFailure;
+    private final Timer existsSuccess;
+    private final Timer existsFailure;
+
+    public AccountMetrics(MeterRegistry meterRegistry) {
+        this.loadCacheSuccess = timer(meterRegistry, "accounts.load", "cache", "success");
+        this.loadCacheFailure = timer(meterRegistry, "accounts.load", "cache", "failure");
+        this.loadDatabaseSuccess = timer(meterRegistry, "accounts.load", "database", "success");
+        this.loadDatabaseFailure = timer(meterRegistry, "accounts.load", "database", "failure");
+        this.saveSuccess = timer(meterRegistry, "accounts.save", null, "success");
+        this.saveFailure = timer(meterRegistry, "accounts.save", null, "failure");
+        this.existsSuccess = timer(meterRegistry, "accounts.exists", null, "success");
+        this.existsFailure = timer(meterRegistry, "accounts.exists", null, "failure");
+    }
+
+    public void recordLoad(boolean fromDatabase, boolean success, long startNanos) {
+        Timer timer = fromDatabase
+                ? (success ? loadDatabaseSuccess : loadDatabaseFailure)
+                : (success ? loadCacheSuccess : loadCacheFailure);
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSave(boolean success, long startNanos) {
+        (success ? saveSuccess : saveFailure).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordExists(boolean success, long startNanos) {
+        (success ? existsSuccess : existsFailure).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String name, String source, String result) {
+        Timer.Builder builder = Timer.builder(name).tag("result", result);
+        if (source != null) {
+            builder.tag("source", source);
+        }
+        return builder.register(meterRegistry);
+    }
+}
@@ -0,0 +1,92 @@
+package me.sangmessi.soccer.accounts;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedResources;
+import org.springframework.hateoas.ResourceSupport;
+import org.springframework.hateoas.core.DelegatingRelProvider;
+import org.springframework.hateoas.hal.CurieProvider;
+import org.springframework.hateoas.hal.Jackson2HalModule;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 계정 목록 한 페이지를 PagedResources 와 같은 HAL 모양으로 스트리밍한다.
+ * 페이지 전체를 메모리에 올리지 않고 Stream 으로 한 행씩 읽어 바로 _embedded.accountList 에 쓴다.
+ * page 메타데이터와 페이지 링크는 전체 개수만 담은 빈 페이지로 assembler 에서 만든다.
+ */
+@Component
+public class AccountPageWriter {
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    AccountLinks accountLinks;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter elementWriter;
+
+    /**
+     * HATEOAS 의 HAL 컨버터와 같은 방식으로 애플리케이션 ObjectMapper 를 복사해 HAL 모듈을 등록한다.
+     */
+    public AccountPageWriter(ObjectMapper objectMapper, DelegatingRelProvider relProvider,
+                             ObjectProvider<CurieProvider> curieProvider) {
+        this.objectMapper = objectMapper.copy().registerModule(new Jackson2HalModule());
+        this.objectMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(relProvider, curieProvider.getIfAvailable(), null));
+        this.elementWriter = this.objectMapper.writerFor(AccountSummaryResource.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Transactional(readOnly = true)
+    public void write(Pageable pageable, PagedResourcesAssembler<AccountSummary> assembler,
+                      List<Link> links, OutputStream out) throws IOException {
+        long total = this.accountRepository.count();
+        PagedResources<?> page = assembler.toEmptyResource(new PageImpl<>(Collections.emptyList(), pageable, total), AccountSummary.class);
+        ResourceSupport pageLinks = new ResourceSupport();
+        pageLinks.add(page.getLinks());
+        pageLinks.add(links);
+
+        try (JsonGenerator gen = this.objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+             Stream<AccountSummary> accounts = this.accountRepository.streamSummaries(pageable)) {
+            gen.writeStartObject();
+            Iterator<AccountSummary> iterator = accounts.iterator();
+            if (iterator.hasNext()) {
+                gen.writeObjectFieldStart("_embedded");
+                gen.writeArrayFieldStart("accountList");
+                while (iterator.hasNext()) {
+                    AccountSummary account = iterator.next();
+                    this.elementWriter.writeValue(gen, new AccountSummaryResource(account, this.accountLinks.self(account)));
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            JsonNode linksNode = this.objectMapper.valueToTree(pageLinks).get("_links");
+            if (linksNode != null) {
+                gen.writeFieldName("_links");
+                gen.writeTree(linksNode);
+            }
+            gen.writeFieldName("page");
+            this.objectMapper.writeValue(gen, page.getMetadata());
+            gen.writeEndObject();
+        }
+    }
+}
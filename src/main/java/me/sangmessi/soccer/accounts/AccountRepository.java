@@ -1,9 +1,53 @@
 package me.sangmessi.soccer.accounts;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface AccountRepository extends JpaRepository<Account, Integer> {
+public interface AccountRepository extends JpaRepository<Account, Integer>, AccountRepositoryCustom {
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_REGION, value = "account-by-email")
+    })
     Optional<Account> findByEmail(String username);
+
+    boolean existsByEmail(String email);
+
+    /**
+     * 목록 한 페이지. 전체 수는 findListVersion 이 함께 알려 주므로 count 쿼리를 따로 실행하지 않는다.
+     */
+    @Query("select new me.sangmessi.soccer.accounts.AccountSummary(a.id, a.email, a.name, a.roles) from Account a")
+    List<AccountSummary> findSummaries(Pageable pageable);
+
+    /**
+     * findSummaries 와 같은 페이지를 forward-only 커서로 한 행씩 읽는다. 트랜잭션 안에서 쓰고 닫아야 한다.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "100"))
+    @Query("select new me.sangmessi.soccer.accounts.AccountSummary(a.id, a.email, a.name, a.roles) from Account a")
+    Stream<AccountSummary> streamSummaries(Pageable pageable);
+
+    @Query("select new me.sangmessi.soccer.accounts.AccountVersion(a.version, a.updatedAt) from Account a where a.id = :id")
+    Optional<AccountVersion> findVersionById(@Param("id") Integer id);
+
+    @Query("select new me.sangmessi.soccer.accounts.AccountListVersion(count(a), max(a.updatedAt)) from Account a")
+    AccountListVersion findListVersion();
+
+    @Query("select a.email from Account a where a.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Transactional
+    @Modifying
+    @Query("update Account a set a.password = :password, a.updatedAt = current_timestamp, a.version = a.version + 1 where a.id = :id")
+    int updatePassword(@Param("id") Integer id, @Param("password") String password);
 }
@@ -0,0 +1,8 @@
+package me.sangmessi.soccer.accounts;
+
+import java.util.List;
+
+public interface AccountRepositoryCustom {
+
+    List<AccountSummary> findAfter(AccountCursor cursor, int limit);
+}
@@ -0,0 +1,46 @@
+package me.sangmessi.soccer.accounts;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+/**
+ * 커서 페이지는 목록 조회와 같은 AccountSummary projection 으로 읽는다.
+ * 정렬 키 email 은 NOT NULL 이므로 keyset 비교에 NULL 처리가 필요 없다.
+ */
+public class AccountRepositoryCustomImpl implements AccountRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AccountSummary> findAfter(AccountCursor cursor, int limit) {
+        String property = "a." + cursor.getProperty();
+        String direction = cursor.getDirection().isAscending() ? "asc" : "desc";
+        String comparison = cursor.getDirection().isAscending() ? " > " : " < ";
+
+        StringBuilder jpql = new StringBuilder("select new me.sangmessi.soccer.accounts.AccountSummary(a.id, a.email, a.name, a.roles) from Account a");
+        if (!cursor.isFirst()) {
+            if ("id".equals(cursor.getProperty())) {
+                jpql.append(" where a.id").append(comparison).append(":lastId");
+            } else {
+                jpql.append(" where ").append(property).append(comparison).append(":lastValue")
+                        .append(" or (").append(property).append(" = :lastValue and a.id").append(comparison).append(":lastId)");
+            }
+        }
+        jpql.append(" order by ").append(property).append(' ').append(direction);
+        if (!"id".equals(cursor.getProperty())) {
+            jpql.append(", a.id ").append(direction);
+        }
+
+        TypedQuery<AccountSummary> query = entityManager.createQuery(jpql.toString(), AccountSummary.class);
+        if (!cursor.isFirst()) {
+            query.setParameter("lastId", cursor.getLastId());
+            if (!"id".equals(cursor.getProperty())) {
+                query.setParameter("lastValue", cursor.getLastValue());
+            }
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -1,5 +1,30 @@
 package me.sangmessi.soccer.accounts;
 
+import java.util.Collection;
+
+/**
+ * mask 는 account.roles 비트마스크 컬럼에 저장되는 값이므로 기존 값을 바꾸지 않는다.
+ */
 public enum  AccountRole {
-    ADMIN, USER
+    ADMIN(1), USER(2);
+
+    private final int mask;
+
+    AccountRole(int mask) {
+        this.mask = mask;
+    }
+
+    public int getMask() {
+        return mask;
+    }
+
+    public static int mask(Collection<AccountRole> roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (AccountRole role : roles) {
+                mask |= role.mask;
+            }
+        }
+        return mask;
+    }
 }
@@ -0,0 +1,34 @@
+package me.sangmessi.soccer.accounts;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Account.roles 를 account 테이블의 정수 비트마스크 컬럼으로 저장한다 (AccountRole.getMask).
+ * 읽을 때는 엔티티마다 EnumSet 하나만 만든다.
+ */
+@Converter
+public class AccountRolesConverter implements AttributeConverter<Set<AccountRole>, Integer> {
+
+    private static final AccountRole[] ROLES = AccountRole.values();
+
+    @Override
+    public Integer convertToDatabaseColumn(Set<AccountRole> roles) {
+        return AccountRole.mask(roles);
+    }
+
+    @Override
+    public Set<AccountRole> convertToEntityAttribute(Integer mask) {
+        Set<AccountRole> roles = EnumSet.noneOf(AccountRole.class);
+        if (mask != null) {
+            for (AccountRole role : ROLES) {
+                if ((mask & role.getMask()) != 0) {
+                    roles.add(role);
+                }
+            }
+        }
+        return roles;
+    }
+}
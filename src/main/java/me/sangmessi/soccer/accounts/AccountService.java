@@ -2,14 +2,16 @@ package me.sangmessi.soccer.accounts;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 
 @Service
-public class AccountService implements UserDetailsService {
+public class AccountService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     AccountRepository accountRepository;
@@ -17,25 +19,147 @@ public class AccountService implements UserDetailsService {
     @Autowired
     PasswordEncoder passwordEncoder;
 
+    @Autowired
+    AccountCache accountCache;
+
+    @Autowired
+    AccountMetrics accountMetrics;
+
+    @Autowired
+    AccountEmailFilter accountEmailFilter;
+
+    @Autowired
+    AccountMapper accountMapper;
+
+    /**
+     * AccountEmailFilter 가 없다고 하는 이메일은 캐시와 DB 를 보지 않고 바로 거절한다.
+     * DB 에서 찾은 계정은 다른 노드에서 가입했을 수 있으므로 필터에 추가한다.
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Account account = accountRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException(username));
+        if (!accountEmailFilter.mightExist(username)) {
+            throw new UsernameNotFoundException(username);
+        }
+        long start = System.nanoTime();
+        boolean[] fromDatabase = {false};
+        Account account = null;
+        try {
+            account = accountCache.get(username, u -> {
+                fromDatabase[0] = true;
+                return findAccount(u);
+            });
+        } finally {
+            accountMetrics.recordLoad(fromDatabase[0], account != null, start);
+        }
+        if (account == null) {
+            throw new UsernameNotFoundException(username);
+        }
+        if (fromDatabase[0]) {
+            accountEmailFilter.add(account.getEmail());
+        }
         return new AccountAdapter(account);
     }
 
+    /**
+     * 로그인에 성공한 계정의 해시가 현재 cost 보다 낮으면 DaoAuthenticationProvider 가 새 해시로 호출한다.
+     * 받은 Account 는 AccountCache 와 토큰 저장소의 principal 이 함께 들고 있을 수 있으므로 고치지 않고 복사본을 돌려준다.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Account account = ((AccountAdapter) user).getAccount();
+        this.accountRepository.updatePassword(account.getId(), newPassword);
+        this.accountCache.evict(account.getEmail());
+        Account updated = Account.builder()
+                .id(account.getId())
+                .email(account.getEmail())
+                .password(newPassword)
+                .name(account.getName())
+                .roles(account.getRoles())
+                .updatedAt(account.getUpdatedAt())
+                .version(account.getVersion())
+                .build();
+        return new AccountAdapter(updated);
+    }
+
+    /**
+     * 이메일 중복 검사는 email 의 unique 제약에 맡긴다. 중복이면 DataIntegrityViolationException 이 발생한다.
+     */
+    public Account createAccount(Account account) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            account.setPassword(this.passwordEncoder.encode(account.getPassword()));
+            Account savedAccount = this.accountRepository.saveAndFlush(account);
+            this.accountCache.evict(savedAccount.getEmail());
+            success = true;
+            return savedAccount;
+        } finally {
+            accountMetrics.recordSave(success, start);
+        }
+    }
+
     public Account saveAccount(Account account) {
-        account.setPassword(this.passwordEncoder.encode(account.getPassword()));
-        return this.accountRepository.save(account);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            account.setPassword(this.passwordEncoder.encode(account.getPassword()));
+            Account savedAccount = this.accountRepository.save(account);
+            this.accountCache.evict(savedAccount.getEmail());
+            success = true;
+            return savedAccount;
+        } finally {
+            accountMetrics.recordSave(success, start);
+        }
+    }
+
+    /**
+     * changes 에서 null 이 아닌 값만 existing 에 옮긴다(PUT 과 PATCH 공용).
+     * 비밀번호는 실제로 바뀐 경우에만 해시한다. 비어 있거나 지금 해시와 같은 값(조회한 값을 그대로 보낸 경우)만 그대로 두고,
+     * 해시처럼 보이는 값이라도 그 밖의 값은 모두 해시한다.
+     * Account 는 @DynamicUpdate 이므로 바뀐 컬럼만 update 하고, 바뀐 것이 없으면 update 하지 않는다.
+     */
+    public Account updateAccount(Account existing, Account changes) {
+        long start = System.nanoTime();
+        boolean success = false;
+        String previousEmail = existing.getEmail();
+        try {
+            String password = changes.getPassword();
+            this.accountMapper.patchAccount(changes, existing);
+            if (StringUtils.hasLength(password) && !password.equals(existing.getPassword())) {
+                existing.setPassword(this.passwordEncoder.encode(password));
+            }
+            Account savedAccount = this.accountRepository.saveAndFlush(existing);
+            this.accountCache.evict(previousEmail);
+            this.accountCache.evict(savedAccount.getEmail());
+            success = true;
+            return savedAccount;
+        } finally {
+            accountMetrics.recordSave(success, start);
+        }
+    }
+
+    public void evictUser(String username) {
+        this.accountCache.evict(username);
     }
 
     public boolean existsUser(String username) {
-        return  accountRepository.findByEmail(username).isPresent();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            boolean exists = accountRepository.existsByEmail(username);
+            success = true;
+            return exists;
+        } finally {
+            accountMetrics.recordExists(success, start);
+        }
     }
 
     public boolean existsUser(Account account) {
-        return accountRepository.findByEmail(account.getEmail()).isPresent();
+        return existsUser(account.getEmail());
     }
 
+    private Account findAccount(String username) {
+        return accountRepository.findByEmail(username).orElse(null);
+    }
 
 }
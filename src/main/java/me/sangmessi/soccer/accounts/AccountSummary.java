@@ -0,0 +1,19 @@
+package me.sangmessi.soccer.accounts;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.hateoas.core.Relation;
+
+import java.util.Set;
+
+/**
+ * 목록 조회용 계정 projection. 비밀번호 없이 필요한 컬럼만 한 번의 select 로 읽는다.
+ */
+@Getter @AllArgsConstructor
+@Relation(value = "account", collectionRelation = "accountList")
+public class AccountSummary {
+    private Integer id;
+    private String email;
+    private String name;
+    private Set<AccountRole> roles;
+}
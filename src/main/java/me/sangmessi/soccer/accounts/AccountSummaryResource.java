@@ -0,0 +1,11 @@
+package me.sangmessi.soccer.accounts;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Resource;
+
+public class AccountSummaryResource extends Resource<AccountSummary> {
+
+    public AccountSummaryResource(AccountSummary account, Link... links) {
+        super(account, links);
+    }
+}
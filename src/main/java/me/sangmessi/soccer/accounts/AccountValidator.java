@@ -1,21 +1,24 @@
 package me.sangmessi.soccer.accounts;
 
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.Errors;
 
 @Component
 public class AccountValidator {
 
-    private final AccountService accountService;
-
-    public AccountValidator(AccountService accountService) {
-        this.accountService = accountService;
+    /**
+     * email 은 로그인 아이디이자 커서 정렬 키이므로 가입할 때 반드시 있어야 한다.
+     * PATCH 에서는 null 이 "바꾸지 않음" 이므로 Account 에 제약을 두지 않고 가입할 때만 검사한다.
+     */
+    public void validateEmail(Account account, Errors errors) {
+        if (!StringUtils.hasText(account.getEmail())) {
+            errors.rejectValue("email", "required", "Email is required");
+        }
     }
 
-    public void validate(Account account, Errors errors) {
-        if(accountService.existsUser(account)) {
-            errors.rejectValue("email", "exists User","This account has already been registered ("+account.getEmail()+")");
-        }
+    public void rejectDuplicate(Account account, Errors errors) {
+        errors.rejectValue("email", "exists User","This account has already been registered ("+account.getEmail()+")");
     }
 
 
@@ -0,0 +1,57 @@
+package me.sangmessi.soccer.accounts;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * 계정 하나의 version 과 updatedAt. ETag 와 Last-Modified 를 만든다.
+ * 응답 본문은 gzip 여부와 사용자(Vary: Authorization)에 따라 바이트가 다르므로 응답에는 약한 ETag(W/"version")를 보낸다.
+ * If-Match 는 version 자체와 강하게 비교한다.
+ * 조건부 GET 은 엔티티 대신 이 두 컬럼만 조회해서 304 를 판단한다.
+ */
+@Getter
+public class AccountVersion {
+
+    private final Long version;
+
+    private final Instant updatedAt;
+
+    public AccountVersion(Long version, Instant updatedAt) {
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    public static AccountVersion of(Account account) {
+        return new AccountVersion(account.getVersion(), account.getUpdatedAt());
+    }
+
+    public String getETag() {
+        return "W/" + getStrongETag();
+    }
+
+    public String getStrongETag() {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * updatedAt 이 없으면 -1 (Last-Modified 를 보내지 않는다).
+     */
+    public long getLastModified() {
+        return updatedAt == null ? -1 : updatedAt.toEpochMilli();
+    }
+
+    /**
+     * If-Match 는 강한 비교다. "*" 는 계정이 있으면 통과하고, 응답에서 받은 약한 ETag(W/...)는 맞지 않는다.
+     */
+    public boolean matches(String ifMatch) {
+        String eTag = getStrongETag();
+        for (String candidate : ifMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
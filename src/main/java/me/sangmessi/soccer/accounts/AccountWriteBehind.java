@@ -0,0 +1,201 @@
+package me.sangmessi.soccer.accounts;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import me.sangmessi.soccer.configs.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 계정 프로필(name, roles) 수정을 모아 두었다가 JDBC batch 로 쓰는 write-behind 경로 (my-app.write-behind.*).
+ * 같은 계정의 수정은 하나로 합쳐지고 속성마다 마지막에 들어온 값이 이긴다(last-writer-wins).
+ * PATCH 처럼 null 인 속성은 앞선 수정의 값을 그대로 둔다.
+ * flush-interval 마다, 또는 대기 중인 계정이 batch-size 에 이르면 쓴다. flush 전에는 조회에 반영되지 않는다.
+ * 대기 중인 계정이 max-pending 이면 새 계정의 수정은 WriteBehindQueueFullException(503) 으로 거절한다.
+ * flush-on-shutdown 이면 종료할 때 남은 수정을 모두 쓴다. 꺼 두면 종료 시 대기 중인 수정은 사라진다.
+ */
+@Component
+public class AccountWriteBehind implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountWriteBehind.class);
+
+    private static final String UPDATE = "update account set name = coalesce(?, name), roles = coalesce(?, roles), updated_at = ?, version = version + 1 where id = ?";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    AccountCache accountCache;
+
+    private final AppProperties.WriteBehind properties;
+
+    private final Map<Integer, PendingUpdate> pending = new ConcurrentHashMap<>();
+
+    private final ExecutorService flushExecutor;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final LongAdder enqueued = new LongAdder();
+
+    private final LongAdder flushed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    public AccountWriteBehind(AppProperties appProperties) {
+        this.properties = appProperties.getWriteBehind();
+        this.flushExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "account-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 이미 대기 중인 계정의 수정은 자리를 차지하지 않으므로 항상 받는다.
+     * 크기 검사와 put 사이의 경합으로 max-pending 을 조금 넘을 수 있다.
+     */
+    public void enqueue(Account existing, Account changes) {
+        Integer id = existing.getId();
+        if (!pending.containsKey(id) && pending.size() >= properties.getMaxPending()) {
+            rejected.increment();
+            throw new WriteBehindQueueFullException();
+        }
+        Integer roleMask = changes.getRoles() == null ? null : AccountRole.mask(changes.getRoles());
+        pending.merge(id, new PendingUpdate(id, existing.getEmail(), changes.getName(), roleMask), PendingUpdate::overwrittenBy);
+        enqueued.increment();
+        if (pending.size() >= properties.getBatchSize() && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${my-app.write-behind.flush-interval:PT1S}", initialDelayString = "${my-app.write-behind.flush-interval:PT1S}")
+    public void scheduledFlush() {
+        if (!pending.isEmpty()) {
+            flush();
+        }
+    }
+
+    /**
+     * 꺼낸 수정만 쓴다. 쓰는 동안 들어온 같은 계정의 수정은 map 에 새로 남아 다음 flush 에서 덮어쓴다.
+     * updated_at 은 flush 시각이다. 수정 요청 시각으로 쓰면 그 사이에 내보내기(If-Modified-Since)를 한 클라이언트가 놓친다.
+     */
+    public synchronized int flush() {
+        int written = 0;
+        List<PendingUpdate> batch = new ArrayList<>(properties.getBatchSize());
+        for (PendingUpdate update : pending.values()) {
+            if (pending.remove(update.id, update)) {
+                batch.add(update);
+            }
+            if (batch.size() == properties.getBatchSize()) {
+                written += write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            written += write(batch);
+        }
+        return written;
+    }
+
+    /**
+     * 실패한 batch 는 다시 넣는다. 그 사이 같은 계정의 새 수정이 들어왔다면 실패한 수정 위에 새 수정을 덮어 합친다.
+     * 같은 값을 다시 쓰는 것은 무해하다.
+     */
+    private int write(List<PendingUpdate> batch) {
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            jdbcTemplate.batchUpdate(UPDATE, batch, batch.size(), (ps, update) -> {
+                ps.setString(1, update.name);
+                ps.setObject(2, update.roleMask, Types.INTEGER);
+                ps.setTimestamp(3, now);
+                ps.setInt(4, update.id);
+            });
+        } catch (DataAccessException e) {
+            failed.add(batch.size());
+            log.warn("Failed to write {} pending account updates, retrying on next flush", batch.size(), e);
+            batch.forEach(update -> pending.merge(update.id, update, (newer, failedUpdate) -> failedUpdate.overwrittenBy(newer)));
+            return 0;
+        }
+        for (PendingUpdate update : batch) {
+            entityManagerFactory.getCache().evict(Account.class, update.id);
+            accountCache.evict(update.email);
+        }
+        flushed.add(batch.size());
+        return batch.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        if (properties.isFlushOnShutdown() && !pending.isEmpty()) {
+            log.info("Flushing {} pending account updates", pending.size());
+            flush();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("accounts.write-behind.pending", this, AccountWriteBehind::getPending).register(registry);
+        FunctionCounter.builder("accounts.write-behind.enqueued", enqueued, LongAdder::sum).register(registry);
+        FunctionCounter.builder("accounts.write-behind.flushed", flushed, LongAdder::sum).register(registry);
+        FunctionCounter.builder("accounts.write-behind.rejected", rejected, LongAdder::sum).register(registry);
+        FunctionCounter.builder("accounts.write-behind.failed", failed, LongAdder::sum).register(registry);
+    }
+
+    private static final class PendingUpdate {
+        private final Integer id;
+        private final String email;
+        private final String name;
+        private final Integer roleMask;
+
+        private PendingUpdate(Integer id, String email, String name, Integer roleMask) {
+            this.id = id;
+            this.email = email;
+            this.name = name;
+            this.roleMask = roleMask;
+        }
+
+        private PendingUpdate overwrittenBy(PendingUpdate next) {
+            return new PendingUpdate(id, email,
+                    next.name != null ? next.name : name,
+                    next.roleMask != null ? next.roleMask : roleMask);
+        }
+    }
+}
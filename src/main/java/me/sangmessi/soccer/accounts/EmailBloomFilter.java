@@ -0,0 +1,100 @@
+package me.sangmessi.soccer.accounts;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 문자열 Bloom filter. 크기는 만들 때 예상 개수와 오탐률로 정해지고 이후 늘어나지 않는다.
+ * 비트는 AtomicLongArray 에 두므로 여러 스레드가 락 없이 put 과 mightContain 을 호출할 수 있다.
+ * 인덱스는 64비트 FNV-1a 해시(fmix64 로 섞음) h1 과 이를 한 번 더 섞은 h2 로 double hashing(h1 + i * h2)해서 만든다.
+ * Guava 처럼 long 으로 더해 나가므로 2^31 비트보다 큰 필터에서도 모든 비트를 쓴다.
+ */
+class EmailBloomFilter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray words;
+
+    private final long bits;
+
+    private final int hashFunctions;
+
+    EmailBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) >>> 6));
+        this.words = new AtomicLongArray(words);
+        this.bits = (long) words << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+
+    void put(String value) {
+        long h1 = hash(value);
+        long h2 = fmix64(h1 + GOLDEN_GAMMA);
+        long combinedHash = h1;
+        for (int i = 0; i < hashFunctions; i++) {
+            combinedHash += h2;
+            long index = index(combinedHash);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    /**
+     * false 면 확실히 없다. true 면 있을 수도 있다.
+     */
+    boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = fmix64(h1 + GOLDEN_GAMMA);
+        long combinedHash = h1;
+        for (int i = 0; i < hashFunctions; i++) {
+            combinedHash += h2;
+            long index = index(combinedHash);
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitSize() {
+        return bits;
+    }
+
+    int hashFunctions() {
+        return hashFunctions;
+    }
+
+    private long index(long combinedHash) {
+        return (combinedHash & Long.MAX_VALUE) % bits;
+    }
+
+    private static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return fmix64(hash);
+    }
+
+    /**
+     * murmur3 fmix64: 짧은 문자열에서도 모든 비트가 고르게 섞이도록 한다.
+     */
+    private static long fmix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
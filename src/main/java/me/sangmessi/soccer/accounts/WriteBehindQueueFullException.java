@@ -0,0 +1,12 @@
+package me.sangmessi.soccer.accounts;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class WriteBehindQueueFullException extends RuntimeException {
+
+    public WriteBehindQueueFullException() {
+        super("Too many pending account updates");
+    }
+}
@@ -0,0 +1,13 @@
+package me.sangmessi.soccer.async;
+
+import java.lang.annotation.*;
+
+/**
+ * 데이터베이스를 사용하는 핸들러. my-app.async.enabled 이면 요청 스레드 대신 전용 스레드 풀에서
+ * DatabaseConcurrencyLimiter 허가를 받아 실행된다. 응답을 직접 쓰는(void) 핸들러는 제외된다.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface DatabaseBound {
+}
@@ -0,0 +1,12 @@
+package me.sangmessi.soccer.async;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class DatabaseBusyException extends RuntimeException {
+
+    public DatabaseBusyException() {
+        super("Too many concurrent database requests");
+    }
+}
@@ -0,0 +1,72 @@
+package me.sangmessi.soccer.async;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 동시에 데이터베이스를 사용하는 핸들러 수를 permits 로 제한한다.
+ * 커넥션 풀 크기에 맞춰 두면 대기가 커넥션 풀(connection-timeout)이 아니라 여기서 일어나고,
+ * acquire-timeout 안에 허가를 받지 못하면 DatabaseBusyException(503) 으로 바로 거절한다.
+ */
+public class DatabaseConcurrencyLimiter implements MeterBinder {
+
+    private final int permits;
+
+    private final Semaphore semaphore;
+
+    private final long acquireTimeoutNanos;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public DatabaseConcurrencyLimiter(int permits, Duration acquireTimeout) {
+        this.permits = permits;
+        this.semaphore = new Semaphore(permits, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    public <T> T call(Callable<T> task) throws Exception {
+        acquire();
+        try {
+            return task.call();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * 허가를 받는다. 받은 허가는 반드시 release() 로 돌려줘야 한다.
+     */
+    public void acquire() throws InterruptedException {
+        if (!semaphore.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            rejected.increment();
+            throw new DatabaseBusyException();
+        }
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public int getActive() {
+        return permits - semaphore.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return semaphore.getQueueLength();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("accounts.database.active", this, DatabaseConcurrencyLimiter::getActive).register(registry);
+        Gauge.builder("accounts.database.waiting", this, DatabaseConcurrencyLimiter::getQueueLength).register(registry);
+        FunctionCounter.builder("accounts.database.rejected", rejected, LongAdder::sum).register(registry);
+    }
+}
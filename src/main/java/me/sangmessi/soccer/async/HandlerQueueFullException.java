@@ -0,0 +1,14 @@
+package me.sangmessi.soccer.async;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class HandlerQueueFullException extends RejectedExecutionException {
+
+    public HandlerQueueFullException() {
+        super("Handler queue is full");
+    }
+}
@@ -0,0 +1,140 @@
+package me.sangmessi.soccer.async;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+/**
+ * @DatabaseBound 핸들러의 본문을 요청 스레드가 아닌 executor 에서 실행하는 RequestMappingHandlerAdapter.
+ * 인자 해석(@Valid 검증 포함)은 요청 스레드에서 끝내고, 메서드 호출만 WebAsyncTask 로 넘긴 뒤 요청 스레드를 반납한다.
+ * 결과는 async dispatch 에서 원래 반환 타입 그대로 처리된다.
+ * 요청 속성, SecurityContext, OSIV EntityManager 는 Spring 이 등록한 CallableProcessingInterceptor 가 작업 스레드에 묶어 준다.
+ * OSIV 가 켜져 있으면 커넥션은 async dispatch 가 응답을 직렬화하고 요청이 끝날 때까지 묶여 있고,
+ * 타임아웃으로 요청이 먼저 끝나도 작업 스레드는 메서드가 돌아올 때까지 커넥션을 쥐고 있으므로,
+ * 데이터베이스 허가는 메서드가 돌아오고 요청도 끝난 뒤에 돌려준다.
+ * 응답을 직접 쓰는 void 핸들러는 offload 하지 않고 요청 스레드에서 허가를 받은 채 실행한다.
+ */
+public class OffloadingHandlerAdapter extends RequestMappingHandlerAdapter implements DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor;
+
+    private final DatabaseConcurrencyLimiter databaseLimiter;
+
+    private final long timeoutMillis;
+
+    public OffloadingHandlerAdapter(ThreadPoolTaskExecutor executor, DatabaseConcurrencyLimiter databaseLimiter, Duration timeout) {
+        this.executor = executor;
+        this.databaseLimiter = databaseLimiter;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        if (!isDatabaseBound(handlerMethod)) {
+            return super.createInvocableHandlerMethod(handlerMethod);
+        }
+        if (handlerMethod.isVoid()) {
+            return new LimitedHandlerMethod(handlerMethod);
+        }
+        return new OffloadedHandlerMethod(handlerMethod);
+    }
+
+    static boolean isDatabaseBound(HandlerMethod handlerMethod) {
+        return handlerMethod.hasMethodAnnotation(DatabaseBound.class)
+                || AnnotatedElementUtils.hasAnnotation(handlerMethod.getBeanType(), DatabaseBound.class);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 반환 값 처리기는 실제 반환 객체의 타입으로 고르므로, WebAsyncTask 를 돌려주면 비동기 처리가 시작된다.
+     */
+    private class OffloadedHandlerMethod extends ServletInvocableHandlerMethod {
+
+        OffloadedHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+        }
+
+        @Override
+        protected Object doInvoke(Object... args) {
+            RequestPermit permit = new RequestPermit();
+            WebAsyncTask<Object> task = new WebAsyncTask<>(timeoutMillis, executor, () -> {
+                permit.acquire();
+                try {
+                    return super.doInvoke(args);
+                } finally {
+                    permit.invocationReturned();
+                }
+            });
+            task.onCompletion(permit::requestCompleted);
+            return task;
+        }
+    }
+
+    /**
+     * 스트리밍처럼 응답을 직접 쓰는 핸들러는 응답을 다 쓸 때까지 요청 스레드에서 허가를 잡고 있는다.
+     */
+    private class LimitedHandlerMethod extends ServletInvocableHandlerMethod {
+
+        LimitedHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+        }
+
+        @Override
+        protected Object doInvoke(Object... args) throws Exception {
+            return databaseLimiter.call(() -> super.doInvoke(args));
+        }
+    }
+
+    /**
+     * 요청 하나가 잡은 허가. 메서드가 돌아오고 요청도 끝난 뒤에야 돌려준다.
+     * 작업이 대기열에 있는 동안 타임아웃으로 요청이 끝났다면 받은 허가를 바로 돌려준다.
+     */
+    private class RequestPermit {
+
+        private boolean acquired;
+
+        private boolean returned;
+
+        private boolean completed;
+
+        void acquire() throws InterruptedException {
+            databaseLimiter.acquire();
+            synchronized (this) {
+                if (!completed) {
+                    acquired = true;
+                    return;
+                }
+            }
+            databaseLimiter.release();
+            throw new CancellationException("Request already completed");
+        }
+
+        synchronized void invocationReturned() {
+            returned = true;
+            releaseIfDone();
+        }
+
+        synchronized void requestCompleted() {
+            completed = true;
+            releaseIfDone();
+        }
+
+        private void releaseIfDone() {
+            if (acquired && returned && completed) {
+                acquired = false;
+                databaseLimiter.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package me.sangmessi.soccer.commons;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+
+import java.io.IOException;
+
+/**
+ * ErrorResource 의 content(Errors) 를 필드/글로벌 에러 배열로 기록한다.
+ * 필드 이름은 미리 인코딩해 둔 SerializedString 을 쓴다.
+ */
+@JsonComponent
+public class ErrorsSerializer extends JsonSerializer<Errors> {
+
+    private static final SerializedString FIELD = new SerializedString("field");
+    private static final SerializedString OBJECT_NAME = new SerializedString("objectName");
+    private static final SerializedString CODE = new SerializedString("code");
+    private static final SerializedString DEFAULT_MESSAGE = new SerializedString("defaultMessage");
+    private static final SerializedString REJECTED_VALUE = new SerializedString("rejectedValue");
+
+    @Override
+    public void serialize(Errors errors, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartArray();
+        for (FieldError e : errors.getFieldErrors()) {
+            gen.writeStartObject();
+            gen.writeFieldName(FIELD);
+            gen.writeString(e.getField());
+            gen.writeFieldName(OBJECT_NAME);
+            gen.writeString(e.getObjectName());
+            gen.writeFieldName(CODE);
+            gen.writeString(e.getCode());
+            gen.writeFieldName(DEFAULT_MESSAGE);
+            gen.writeString(e.getDefaultMessage());
+            Object rejectedValue = e.getRejectedValue();
+            if (rejectedValue != null) {
+                gen.writeFieldName(REJECTED_VALUE);
+                gen.writeString(rejectedValue.toString());
+            }
+            gen.writeEndObject();
+        }
+        for (ObjectError e : errors.getGlobalErrors()) {
+            gen.writeStartObject();
+            gen.writeFieldName(OBJECT_NAME);
+            gen.writeString(e.getObjectName());
+            gen.writeFieldName(CODE);
+            gen.writeString(e.getCode());
+            gen.writeFieldName(DEFAULT_MESSAGE);
+            gen.writeString(e.getDefaultMessage());
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+}
@@ -1,29 +1,65 @@
 package me.sangmessi.soccer.configs;
 
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 import me.sangmessi.soccer.accounts.Account;
 import me.sangmessi.soccer.accounts.AccountRole;
 import me.sangmessi.soccer.accounts.AccountService;
-import org.modelmapper.ModelMapper;
+import me.sangmessi.soccer.passwords.BCryptCostCalibrator;
+import me.sangmessi.soccer.passwords.HashingPasswordEncoder;
+import me.sangmessi.soccer.passwords.PasswordHashingRejectedFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 @Configuration
+@EnableScheduling
 public class AppConfig {
+    /**
+     * 직렬화할 때 리플렉션 대신 생성한 바이트코드로 getter 를 호출한다.
+     * Spring Boot 가 ObjectMapper 에 등록하고, HAL ObjectMapper 와 AccountPageWriter 는 이를 복사해서 쓴다.
+     */
     @Bean
-    public ModelMapper modelMapper(){
-        return new ModelMapper();
+    public AfterburnerModule afterburnerModule() {
+        return new AfterburnerModule();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    public HashingPasswordEncoder passwordEncoder(AppProperties appProperties) {
+        AppProperties.PasswordHashing properties = appProperties.getPasswordHashing();
+        int strength = properties.isCalibrate()
+                ? BCryptCostCalibrator.calibrate(properties.getTargetDuration(), properties.getMinStrength(), properties.getMaxStrength())
+                : properties.getMinStrength();
+
+        // bcrypt 만 보정한 cost 로 바꾸고, 나머지 id(noop, ldap, MD5, SHA-256, pbkdf2, scrypt ...)는 기본 팩토리 인코더가 확인한다.
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(strength));
+        DelegatingPasswordEncoder delegate = new DelegatingPasswordEncoder("bcrypt", encoders);
+        delegate.setDefaultPasswordEncoderForMatches(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        return new HashingPasswordEncoder(delegate, strength, properties.getThreads(), properties.getQueueCapacity());
+    }
+
+    /**
+     * 클라이언트 인증에서 해시 대기열이 가득 차 거절된 토큰 요청을 503 으로 응답하도록 Spring Security 필터 체인을 감싼다.
+     */
+    @Bean
+    public FilterRegistrationBean<PasswordHashingRejectedFilter> passwordHashingRejectedFilterRegistration(AppProperties appProperties) {
+        FilterRegistrationBean<PasswordHashingRejectedFilter> registration =
+                new FilterRegistrationBean<>(new PasswordHashingRejectedFilter(appProperties.getPasswordHashing().getRetryAfter()));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 2);
+        return registration;
     }
 
     @Bean
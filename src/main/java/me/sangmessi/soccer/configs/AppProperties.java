@@ -6,6 +6,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import javax.validation.constraints.NotEmpty;
+import java.time.Duration;
 
 @Component
 @ConfigurationProperties(prefix = "my-app")
@@ -24,4 +25,114 @@ public class AppProperties {
     private String clientId;
     @NotEmpty
     private String clientSecret;
+
+    private final UserCache userCache = new UserCache();
+
+    private final TokenStore tokenStore = new TokenStore();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final AccountImport accountImport = new AccountImport();
+
+    private final AccountExport accountExport = new AccountExport();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final EmailFilter emailFilter = new EmailFilter();
+
+    private final Async async = new Async();
+
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    @Getter @Setter
+    public static class UserCache {
+        private boolean enabled;
+        private long maximumSize = 10_000;
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+    }
+
+    @Getter @Setter
+    public static class TokenStore {
+        private TokenStoreType type = TokenStoreType.MEMORY;
+        private long cacheMaximumSize = 10_000;
+        private Duration cacheExpireAfterWrite = Duration.ofMinutes(1);
+        private int purgeBatchSize = 1_000;
+        private String signingKey;
+    }
+
+    @Getter @Setter
+    public static class PasswordHashing {
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = 100;
+        private boolean calibrate = true;
+        private Duration targetDuration = Duration.ofMillis(250);
+        private int minStrength = 10;
+        private int maxStrength = 14;
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+
+    @Getter @Setter
+    public static class AccountImport {
+        private int batchSize = 500;
+    }
+
+    @Getter @Setter
+    public static class AccountExport {
+        private int fetchSize = 1_000;
+    }
+
+    @Getter @Setter
+    public static class EmailFilter {
+        private boolean enabled;
+        private long expectedAccounts = 1_000_000;
+        private double falsePositiveRate = 0.01;
+        private Duration rebuildInterval = Duration.ofHours(1);
+        private double missConfirmationsPerSecond = 10;
+    }
+
+    @Getter @Setter
+    public static class Async {
+        private boolean enabled;
+        private int threads = 50;
+        private int queueCapacity = 1_000;
+        private Duration keepAlive = Duration.ofSeconds(60);
+        private Duration timeout = Duration.ofSeconds(30);
+        private int databasePermits = 10;
+        private Duration databaseAcquireTimeout = Duration.ofSeconds(1);
+    }
+
+    @Getter @Setter
+    public static class WriteBehind {
+        private boolean enabled;
+        private int maxPending = 10_000;
+        private int batchSize = 500;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private boolean flushOnShutdown = true;
+    }
+
+    @Getter @Setter
+    public static class RateLimit {
+        private boolean enabled = true;
+        private long maximumBuckets = 100_000;
+        private Duration idleTimeout = Duration.ofMinutes(10);
+        private Duration sweepInterval = Duration.ofMinutes(1);
+        private final Limit client = new Limit(100, 200);
+        private final Limit address = new Limit(10, 20);
+        private final Limit username = new Limit(1, 5);
+
+        @Getter @Setter
+        public static class Limit {
+            private double permitsPerSecond;
+            private int burst;
+
+            public Limit(double permitsPerSecond, int burst) {
+                this.permitsPerSecond = permitsPerSecond;
+                this.burst = burst;
+            }
+        }
+    }
+
+    public enum TokenStoreType {
+        MEMORY, JPA, JWT
+    }
 }
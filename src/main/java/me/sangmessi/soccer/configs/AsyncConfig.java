@@ -0,0 +1,64 @@
+package me.sangmessi.soccer.configs;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import me.sangmessi.soccer.async.DatabaseConcurrencyLimiter;
+import me.sangmessi.soccer.async.HandlerQueueFullException;
+import me.sangmessi.soccer.async.OffloadingHandlerAdapter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * @DatabaseBound 핸들러를 전용 스레드 풀에서 실행하는 모드. 요청 스레드는 인자 해석 후 바로 반납되어
+ * 데이터베이스가 느려져도 IndexController 같은 가벼운 핸들러는 Tomcat 스레드를 기다리지 않는다.
+ * 스레드 풀은 threads 까지 늘었다가 keep-alive 동안 놀면 줄어들고, 대기열이 가득 차면 503 으로 거절한다.
+ * 풀 스레드는 Executor 빈으로 등록하지 않는다(등록하면 applicationTaskExecutor 가 만들어지지 않는다).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "my-app.async", name = "enabled", havingValue = "true")
+public class AsyncConfig {
+
+    private final AppProperties.Async properties;
+
+    private final ThreadPoolTaskExecutor handlerExecutor;
+
+    public AsyncConfig(AppProperties appProperties) {
+        this.properties = appProperties.getAsync();
+        this.handlerExecutor = new ThreadPoolTaskExecutor();
+        handlerExecutor.setCorePoolSize(properties.getThreads());
+        handlerExecutor.setMaxPoolSize(properties.getThreads());
+        handlerExecutor.setAllowCoreThreadTimeOut(true);
+        handlerExecutor.setKeepAliveSeconds((int) properties.getKeepAlive().getSeconds());
+        handlerExecutor.setQueueCapacity(properties.getQueueCapacity());
+        handlerExecutor.setThreadNamePrefix("account-handler-");
+        handlerExecutor.setRejectedExecutionHandler((task, executor) -> {
+            throw new HandlerQueueFullException();
+        });
+        handlerExecutor.initialize();
+    }
+
+    @Bean
+    public DatabaseConcurrencyLimiter databaseConcurrencyLimiter() {
+        return new DatabaseConcurrencyLimiter(properties.getDatabasePermits(), properties.getDatabaseAcquireTimeout());
+    }
+
+    @Bean
+    public WebMvcRegistrations offloadingWebMvcRegistrations(DatabaseConcurrencyLimiter databaseConcurrencyLimiter) {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+                return new OffloadingHandlerAdapter(handlerExecutor, databaseConcurrencyLimiter, properties.getTimeout());
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder handlerExecutorMetrics() {
+        return registry -> new ExecutorServiceMetrics(handlerExecutor.getThreadPoolExecutor(), "account.handlers", Tags.empty()).bindTo(registry);
+    }
+}
@@ -1,6 +1,10 @@
 package me.sangmessi.soccer.configs;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import me.sangmessi.soccer.accounts.AccountService;
+import me.sangmessi.soccer.passwords.PasswordHashingExceptionTranslator;
+import me.sangmessi.soccer.tokens.MeteredTokenStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,6 +15,7 @@ import org.springframework.security.oauth2.config.annotation.web.configuration.E
 import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerEndpointsConfigurer;
 import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerSecurityConfigurer;
 import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
 
 @Configuration
 @EnableAuthorizationServer
@@ -31,6 +36,12 @@ public class AuthServerConfig extends AuthorizationServerConfigurerAdapter {
     @Autowired
     AppProperties appProperties;
 
+    @Autowired
+    ObjectProvider<JwtAccessTokenConverter> jwtAccessTokenConverter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @Override
     public void configure(AuthorizationServerSecurityConfigurer security) throws Exception {
         security.passwordEncoder(passwordEncoder);
@@ -51,7 +62,9 @@ public class AuthServerConfig extends AuthorizationServerConfigurerAdapter {
     public void configure(AuthorizationServerEndpointsConfigurer endpoints) throws Exception {
         endpoints.authenticationManager(authenticationManager)
                 .userDetailsService(accountService)
-                .tokenStore(tokenStore)
+                .tokenStore(new MeteredTokenStore(tokenStore, meterRegistry))
+                .exceptionTranslator(new PasswordHashingExceptionTranslator(appProperties.getPasswordHashing().getRetryAfter()))
         ;
+        jwtAccessTokenConverter.ifAvailable(endpoints::accessTokenConverter);
     }
 }
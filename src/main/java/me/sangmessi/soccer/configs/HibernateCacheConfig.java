@@ -0,0 +1,42 @@
+package me.sangmessi.soccer.configs;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.cache.CacheManager;
+import java.io.IOException;
+
+/**
+ * Hibernate 2차 캐시(JCache + Ehcache)에 ehcache.xml 리전 설정을 사용하는 CacheManager 를 넘긴다.
+ * 컨텍스트마다 CacheManager 를 새로 만들어 같은 JVM 의 다른 컨텍스트(테스트 등)와 리전을 공유하지 않는다.
+ * 리전 메트릭은 hibernate.generate_statistics 없이 Ehcache 의 JCache 통계(ehcache.xml enable-statistics)로 낸다.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() throws IOException {
+        return new EhcacheCachingProvider()
+                .getCacheManager(new ClassPathResource("ehcache.xml").getURI(), getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    @Bean
+    public MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String cacheName : hibernateCacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(cacheName));
+            }
+        };
+    }
+}
@@ -23,8 +23,16 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
             .anonymous()
                 .and()
             .authorizeRequests()
+                .mvcMatchers(HttpMethod.GET, "/api/accounts/export")
+                    .hasRole("ADMIN")
                 .mvcMatchers(HttpMethod.GET, "/api/**", "/docs/**")
                     .permitAll()
+                .mvcMatchers(HttpMethod.GET, "/actuator/health")
+                    .permitAll()
+                .mvcMatchers(HttpMethod.GET, "/actuator/**")
+                    .hasRole("ADMIN")
+                .mvcMatchers(HttpMethod.POST, "/api/accounts/import")
+                    .hasRole("ADMIN")
                 .anyRequest()
                     .authenticated()
                 .and()
@@ -1,7 +1,15 @@
 package me.sangmessi.soccer.configs;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
 import me.sangmessi.soccer.accounts.AccountService;
+import me.sangmessi.soccer.tokens.AccountUserAuthenticationConverter;
+import me.sangmessi.soccer.tokens.CachingJwtTokenStore;
+import me.sangmessi.soccer.tokens.JpaTokenStore;
+import me.sangmessi.soccer.tokens.StoredAccessTokenRepository;
+import me.sangmessi.soccer.tokens.StoredRefreshTokenRepository;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,8 +19,11 @@ import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.security.oauth2.provider.token.store.InMemoryTokenStore;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+import org.springframework.util.StringUtils;
 
 @Configuration
 @EnableWebSecurity
@@ -24,9 +35,54 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     PasswordEncoder passwordEncoder;
 
+    @Autowired
+    AppProperties appProperties;
+
+    @Bean
+    public TokenStore tokenStore(StoredAccessTokenRepository accessTokenRepository,
+                                 StoredRefreshTokenRepository refreshTokenRepository,
+                                 ObjectProvider<JwtAccessTokenConverter> jwtAccessTokenConverter) {
+        AppProperties.TokenStore properties = appProperties.getTokenStore();
+        switch (properties.getType()) {
+            case JPA:
+                return new JpaTokenStore(accessTokenRepository, refreshTokenRepository, properties);
+            case JWT:
+                return new CachingJwtTokenStore(jwtAccessTokenConverter.getObject(), properties);
+            default:
+                return new InMemoryTokenStore();
+        }
+    }
+
+    /**
+     * tokenStore 빈의 반환 타입은 TokenStore 이므로 캐시 메트릭은 직접 바인딩한다.
+     */
     @Bean
-    public TokenStore tokenStore() {
-        return new InMemoryTokenStore();
+    public MeterBinder tokenStoreMetrics(TokenStore tokenStore) {
+        return registry -> {
+            if (tokenStore instanceof MeterBinder) {
+                ((MeterBinder) tokenStore).bindTo(registry);
+            }
+        };
+    }
+
+    /**
+     * 서명 키가 없으면 JwtAccessTokenConverter 가 JVM 마다 임의의 키를 만들어 다른 노드가 발급한 토큰을 거부하므로 시작하지 않는다.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "my-app.token-store", name = "type", havingValue = "jwt")
+    public JwtAccessTokenConverter jwtAccessTokenConverter() {
+        String signingKey = appProperties.getTokenStore().getSigningKey();
+        if (!StringUtils.hasText(signingKey)) {
+            throw new IllegalStateException("my-app.token-store.signing-key is required when my-app.token-store.type=jwt");
+        }
+
+        DefaultAccessTokenConverter accessTokenConverter = new DefaultAccessTokenConverter();
+        accessTokenConverter.setUserTokenConverter(new AccountUserAuthenticationConverter());
+
+        JwtAccessTokenConverter jwtAccessTokenConverter = new JwtAccessTokenConverter();
+        jwtAccessTokenConverter.setAccessTokenConverter(accessTokenConverter);
+        jwtAccessTokenConverter.setSigningKey(signingKey);
+        return jwtAccessTokenConverter;
     }
 
     @Bean
@@ -0,0 +1,37 @@
+package me.sangmessi.soccer.passwords;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+
+/**
+ * 현재 장비에서 bcrypt 한 번의 해시가 목표 시간 안에 끝나는 가장 큰 cost 를 찾는다.
+ * cost 가 1 증가하면 해시 시간은 두 배가 된다.
+ */
+public final class BCryptCostCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private BCryptCostCalibrator() {
+    }
+
+    public static int calibrate(Duration target, int minStrength, int maxStrength) {
+        hash(minStrength);
+        int strength = minStrength;
+        while (strength < maxStrength && hash(strength + 1) <= target.toNanos()) {
+            strength++;
+        }
+        log.info("Calibrated bcrypt strength {} for target {}", strength, target);
+        return strength;
+    }
+
+    private static long hash(int strength) {
+        long start = System.nanoTime();
+        BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(strength));
+        return System.nanoTime() - start;
+    }
+}
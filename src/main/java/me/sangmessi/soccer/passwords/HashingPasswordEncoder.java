@@ -0,0 +1,212 @@
+package me.sangmessi.soccer.passwords;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * encode/matches 를 전용 스레드 풀에서 실행하는 PasswordEncoder.
+ * 동시에 실행되는 해시 수를 threads 로 제한하고, 대기열(queue-capacity)이 가득 차면 바로 거절한다.
+ * 일괄 등록은 encodeAll 로 거절 대신 기다리며 나눠 맡긴다.
+ * bcrypt cost 가 현재 strength 보다 낮은 해시는 로그인 성공 시 다시 해시하도록 upgradeEncoding 에서 알려준다.
+ * MeterRegistry 에 바인딩되면 대기 시간을 포함한 encode/matches 시간과 스레드 풀 상태를 기록한다.
+ */
+public class HashingPasswordEncoder implements PasswordEncoder, DisposableBean, MeterBinder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\{bcrypt}\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder delegate;
+
+    private final int strength;
+
+    private static final long RESUBMIT_BACKOFF_MILLIS = 10;
+
+    private final ThreadPoolExecutor executor;
+
+    private volatile Metrics metrics;
+
+    public HashingPasswordEncoder(PasswordEncoder delegate, int strength, int threads, int queueCapacity) {
+        this.delegate = delegate;
+        this.strength = strength;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        Metrics metrics = this.metrics;
+        if (metrics == null) {
+            return execute(() -> delegate.encode(rawPassword));
+        }
+        return metrics.record(metrics.encodeSuccess, metrics.encodeFailure, () -> execute(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Metrics metrics = this.metrics;
+        if (metrics == null) {
+            return execute(() -> delegate.matches(rawPassword, encodedPassword));
+        }
+        return metrics.record(metrics.matchesSuccess, metrics.matchesFailure, () -> execute(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * rawPasswords 를 순서대로 해시한다. 한 번에 threads 개까지만 맡겨 로그인 요청이 쓸 대기열을 남겨 두고,
+     * 대기열이 가득 차면 거절하는 대신 먼저 맡긴 해시가 끝나기를(맡긴 것이 없으면 잠시) 기다렸다가 다시 맡긴다.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        int maxInFlight = executor.getMaximumPoolSize();
+        List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+        List<String> encoded = new ArrayList<>(rawPasswords.size());
+        for (CharSequence rawPassword : rawPasswords) {
+            if (futures.size() - encoded.size() >= maxInFlight) {
+                encoded.add(await(futures.get(encoded.size())));
+            }
+            Future<String> future;
+            while ((future = trySubmit(() -> delegate.encode(rawPassword))) == null) {
+                if (futures.size() > encoded.size()) {
+                    encoded.add(await(futures.get(encoded.size())));
+                } else {
+                    backoff();
+                }
+            }
+            futures.add(future);
+        }
+        while (encoded.size() < futures.size()) {
+            encoded.add(await(futures.get(encoded.size())));
+        }
+        return encoded;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (delegate.upgradeEncoding(encodedPassword)) {
+            return true;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "password.hashing", Tags.empty()).bindTo(registry);
+        this.metrics = new Metrics(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            Metrics metrics = this.metrics;
+            if (metrics != null) {
+                metrics.rejected.increment();
+            }
+            throw new PasswordHashingRejectedException(e);
+        }
+        return await(future);
+    }
+
+    private <T> Future<T> trySubmit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                throw new PasswordHashingRejectedException(e);
+            }
+            return null;
+        }
+    }
+
+    private void backoff() {
+        try {
+            Thread.sleep(RESUBMIT_BACKOFF_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final class Metrics {
+        private final Timer encodeSuccess;
+        private final Timer encodeFailure;
+        private final Timer matchesSuccess;
+        private final Timer matchesFailure;
+        private final Counter rejected;
+
+        private Metrics(MeterRegistry registry) {
+            this.encodeSuccess = registry.timer("password.encode", "result", "success");
+            this.encodeFailure = registry.timer("password.encode", "result", "failure");
+            this.matchesSuccess = registry.timer("password.matches", "result", "success");
+            this.matchesFailure = registry.timer("password.matches", "result", "failure");
+            this.rejected = registry.counter("password.hashing.rejected");
+        }
+
+        private <T> T record(Timer success, Timer failure, Supplier<T> call) {
+            long start = System.nanoTime();
+            boolean succeeded = false;
+            try {
+                T result = call.get();
+                succeeded = true;
+                return result;
+            } finally {
+                (succeeded ? success : failure).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package me.sangmessi.soccer.passwords;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
+import org.springframework.security.oauth2.provider.error.DefaultWebResponseExceptionTranslator;
+import org.springframework.security.oauth2.provider.error.WebResponseExceptionTranslator;
+
+import java.time.Duration;
+
+/**
+ * 토큰 발급 중(password grant 의 비밀번호 확인) 해시 대기열이 가득 차면 500 server_error 대신
+ * 503 temporarily_unavailable 과 Retry-After 로 응답한다. 나머지 예외는 DefaultWebResponseExceptionTranslator 가 처리한다.
+ */
+public class PasswordHashingExceptionTranslator implements WebResponseExceptionTranslator<OAuth2Exception> {
+
+    private final WebResponseExceptionTranslator<OAuth2Exception> delegate = new DefaultWebResponseExceptionTranslator();
+
+    private final String retryAfter;
+
+    public PasswordHashingExceptionTranslator(Duration retryAfter) {
+        this.retryAfter = PasswordHashingRejectedException.retryAfterSeconds(retryAfter);
+    }
+
+    @Override
+    public ResponseEntity<OAuth2Exception> translate(Exception e) throws Exception {
+        PasswordHashingRejectedException rejected = PasswordHashingRejectedException.find(e);
+        if (rejected == null) {
+            return delegate.translate(e);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl("no-store");
+        headers.setPragma("no-cache");
+        headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+        return new ResponseEntity<>(new TemporarilyUnavailableException(rejected.getMessage(), rejected), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    static class TemporarilyUnavailableException extends OAuth2Exception {
+
+        TemporarilyUnavailableException(String msg, Throwable t) {
+            super(msg, t);
+        }
+
+        @Override
+        public String getOAuth2ErrorCode() {
+            return "temporarily_unavailable";
+        }
+
+        @Override
+        public int getHttpErrorCode() {
+            return HttpStatus.SERVICE_UNAVAILABLE.value();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package me.sangmessi.soccer.passwords;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.time.Duration;
+
+/**
+ * 해시 대기열이 가득 차서 거절됨. 컨트롤러에서는 @ResponseStatus 로, 토큰 발급에서는
+ * PasswordHashingRejectedFilter 와 PasswordHashingExceptionTranslator 가 503 으로 바꾼다.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(Throwable cause) {
+        super("Password hashing queue is full", cause);
+    }
+
+    /**
+     * 원인을 따라가며 PasswordHashingRejectedException 을 찾는다. 없으면 null.
+     */
+    static PasswordHashingRejectedException find(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PasswordHashingRejectedException) {
+                return (PasswordHashingRejectedException) cause;
+            }
+        }
+        return null;
+    }
+
+    static String retryAfterSeconds(Duration retryAfter) {
+        return String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+    }
+}
@@ -0,0 +1,39 @@
+package me.sangmessi.soccer.passwords;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * 필터 체인에서 빠져나온 PasswordHashingRejectedException 을 503 과 Retry-After 로 바꾼다.
+ * 토큰 요청의 클라이언트 Basic 인증(BasicAuthenticationFilter)은 AuthenticationException 이 아닌 예외를 그대로 던지므로
+ * Spring Security 필터 체인보다 먼저 등록한다.
+ */
+public class PasswordHashingRejectedFilter extends OncePerRequestFilter {
+
+    private final String retryAfter;
+
+    public PasswordHashingRejectedFilter(Duration retryAfter) {
+        this.retryAfter = PasswordHashingRejectedException.retryAfterSeconds(retryAfter);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } catch (ServletException | RuntimeException e) {
+            if (response.isCommitted() || PasswordHashingRejectedException.find(e) == null) {
+                throw e;
+            }
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package me.sangmessi.soccer.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import me.sangmessi.soccer.configs.AppProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 토큰 발급(POST /oauth/token)과 계정 생성(POST /api/accounts) 요청을 OAuth 클라이언트, 요청 주소, 사용자 이름별
+ * 토큰 버킷으로 제한한다 (my-app.rate-limit.*). 버킷 하나라도 비어 있으면 429 와 Retry-After(초)를 돌려준다.
+ * 버킷은 종류별로 ConcurrentHashMap 에 최대 maximum-buckets 개까지 두고, 주기적으로(sweep-interval) 오래 쓰지 않은 버킷을 버린다.
+ * 맵이 가득 차면 새 키는 키의 해시로 고른 overflow 버킷(종류별 1024 개)을 함께 쓴다. 요청 경로에서는 맵을 훑지 않고, 제한을 풀지도 않는다.
+ * overflow 버킷을 여러 개로 나누므로 한 키를 몰아 보내도 다른 새 키는 대부분 제한받지 않는다.
+ * 요청마다 시계를 읽는 캐시 대신 GCRA 의 도착 시각으로 유휴 여부를 판단하므로 요청 경로에서는 락도 시계 호출도 더 없다.
+ * 인증(bcrypt) 전에 거절하도록 Spring Security 필터보다 먼저 등록한다.
+ */
+public class RateLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    static final String TOKEN_PATH = "/oauth/token";
+
+    static final String ACCOUNTS_PATH = "/api/accounts";
+
+    private static final int OVERFLOW_STRIPE_BITS = 10;
+
+    static final int OVERFLOW_STRIPES = 1 << OVERFLOW_STRIPE_BITS;
+
+    private final Limiter client;
+
+    private final Limiter address;
+
+    private final Limiter username;
+
+    public RateLimitFilter(AppProperties.RateLimit properties) {
+        this.client = new Limiter("client", properties.getClient(), properties);
+        this.address = new Limiter("address", properties.getAddress(), properties);
+        this.username = new Limiter("username", properties.getUsername(), properties);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+        return !isPath(request, TOKEN_PATH) && !isPath(request, ACCOUNTS_PATH);
+    }
+
+    /**
+     * 컨텍스트 경로를 뺀 요청 URI 가 path 와 같은지 본다. 문자열을 새로 만들지 않는다.
+     */
+    private static boolean isPath(HttpServletRequest request, String path) {
+        String uri = request.getRequestURI();
+        int offset = request.getContextPath().length();
+        return uri.length() == offset + path.length() && uri.startsWith(path, offset);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        long waitNanos = acquire(request, System.nanoTime());
+        if (waitNanos > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * 요청에 해당하는 버킷에서 토큰을 쓴다. 허용되면 0, 거절되면 기다려야 하는 나노초.
+     */
+    long acquire(HttpServletRequest request, long nowNanos) {
+        long waitNanos = address.acquire(request.getRemoteAddr(), nowNanos);
+        if (waitNanos == 0 && isPath(request, TOKEN_PATH)) {
+            waitNanos = client.acquire(clientId(request), nowNanos);
+            if (waitNanos == 0) {
+                waitNanos = username.acquire(request.getParameter("username"), nowNanos);
+            }
+        }
+        return waitNanos;
+    }
+
+    /**
+     * 토큰 요청의 클라이언트 id. Basic 인증 헤더의 사용자 이름이거나 client_id 파라미터.
+     */
+    private static String clientId(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+            try {
+                String credentials = new String(Base64.getDecoder().decode(authorization.substring(6).trim()), StandardCharsets.UTF_8);
+                int colon = credentials.indexOf(':');
+                return colon < 0 ? credentials : credentials.substring(0, colon);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return request.getParameter("client_id");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        client.bindTo(registry);
+        address.bindTo(registry);
+        username.bindTo(registry);
+    }
+
+    /**
+     * 오래 쓰지 않은 버킷(idle-timeout 동안 토큰을 쓰지 않아 가득 찬 버킷)을 버린다.
+     */
+    @Scheduled(fixedDelayString = "${my-app.rate-limit.sweep-interval:PT1M}")
+    public void evictIdleBuckets() {
+        evictIdleBuckets(System.nanoTime());
+    }
+
+    void evictIdleBuckets(long nowNanos) {
+        client.evictIdle(nowNanos);
+        address.evictIdle(nowNanos);
+        username.evictIdle(nowNanos);
+    }
+
+    /**
+     * 맵이 가득 찼을 때 key 가 쓰는 overflow 버킷의 번호.
+     * 비슷한 문자열(user1@..., user2@...)의 hashCode 는 하위 비트가 몰리므로 Fibonacci hashing 의 상위 10비트를 쓴다.
+     */
+    static int overflowStripe(String key) {
+        return (key.hashCode() * 0x9e3779b9) >>> (Integer.SIZE - OVERFLOW_STRIPE_BITS);
+    }
+
+    private static final class Limiter {
+        private final String name;
+        private final long emissionIntervalNanos;
+        private final int burst;
+        private final long maximumBuckets;
+        private final long idleTimeoutNanos;
+        private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+        private final TokenBucket[] overflow = new TokenBucket[OVERFLOW_STRIPES];
+        private volatile Counter rejected;
+        private volatile Counter overflowed;
+
+        private Limiter(String name, AppProperties.RateLimit.Limit limit, AppProperties.RateLimit properties) {
+            this.name = name;
+            this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getPermitsPerSecond());
+            this.burst = limit.getBurst();
+            this.maximumBuckets = properties.getMaximumBuckets();
+            this.idleTimeoutNanos = properties.getIdleTimeout().toNanos();
+            // 가장 이른 시각으로 만들어 처음 쓸 때 가득 차 있게 한다. overflow 버킷은 버리지 않으므로 isIdle 을 부르지 않는다.
+            for (int i = 0; i < OVERFLOW_STRIPES; i++) {
+                this.overflow[i] = new TokenBucket(emissionIntervalNanos, burst, Long.MIN_VALUE);
+            }
+        }
+
+        private long acquire(String key, long nowNanos) {
+            if (key == null) {
+                return 0;
+            }
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= maximumBuckets) {
+                    // 버킷이 가득 차면 새 키는 해시가 같은 키끼리 overflow 버킷을 나눠 쓴다. 자리는 다음 sweep 이 만든다.
+                    bucket = overflow[overflowStripe(key)];
+                    Counter overflowed = this.overflowed;
+                    if (overflowed != null) {
+                        overflowed.increment();
+                    }
+                } else {
+                    bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(emissionIntervalNanos, burst, nowNanos));
+                }
+            }
+            long waitNanos = bucket.tryAcquire(nowNanos);
+            Counter rejected = this.rejected;
+            if (waitNanos > 0 && rejected != null) {
+                rejected.increment();
+            }
+            return waitNanos;
+        }
+
+        private void evictIdle(long nowNanos) {
+            buckets.values().removeIf(bucket -> bucket.isIdle(nowNanos, idleTimeoutNanos));
+        }
+
+        private void bindTo(MeterRegistry registry) {
+            this.rejected = Counter.builder("ratelimit.rejected")
+                    .description("Requests rejected with 429 by the rate limiter")
+                    .tag("key", name)
+                    .register(registry);
+            this.overflowed = Counter.builder("ratelimit.overflow")
+                    .description("Requests limited by a shared overflow bucket because maximum-buckets was reached")
+                    .tag("key", name)
+                    .register(registry);
+            registry.gauge("ratelimit.buckets", Tags.of("key", name), buckets, Map::size);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package me.sangmessi.soccer.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 락 없이 동작하는 토큰 버킷. GCRA(generic cell rate algorithm) 방식으로 다음 토큰이 생기는 이론적 도착 시각(TAT)
+ * 하나만 AtomicLong 에 두고 CAS 로 갱신하므로 버킷마다 long 하나만 쓴다.
+ */
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+
+    private final long burstNanos;
+
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param emissionIntervalNanos 토큰 하나가 다시 채워지는 간격 (1초 / 초당 허용 수)
+     * @param burst                 한 번에 쓸 수 있는 최대 토큰 수
+     * @param nowNanos              System.nanoTime() 기준 현재 시각. 처음에는 버킷이 가득 차 있다.
+     */
+    public TokenBucket(long emissionIntervalNanos, int burst, long nowNanos) {
+        this.emissionIntervalNanos = emissionIntervalNanos;
+        this.burstNanos = emissionIntervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * 토큰 하나를 쓴다. 허용되면 0, 거절되면 다음 토큰까지 기다려야 하는 나노초를 돌려준다.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long newTat = Math.max(tat, nowNanos) + emissionIntervalNanos;
+            long waitNanos = newTat - nowNanos - burstNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 마지막으로 쓴 토큰까지 모두 채워진 뒤 idleNanos 가 지났는지. 이런 버킷은 버리고 다시 만들어도 결과가 같다.
+     */
+    public boolean isIdle(long nowNanos, long idleNanos) {
+        return nowNanos - theoreticalArrival.get() > idleNanos;
+    }
+}
@@ -0,0 +1,60 @@
+package me.sangmessi.soccer.tokens;
+
+import me.sangmessi.soccer.accounts.Account;
+import me.sangmessi.soccer.accounts.AccountAdapter;
+import me.sangmessi.soccer.accounts.AccountRole;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.provider.token.DefaultUserAuthenticationConverter;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JWT 의 클레임(user_name, account_id, authorities)만으로 AccountAdapter 를 복원한다.
+ * 리소스 서버에서 토큰을 검증할 때 DB 나 토큰 저장소를 조회하지 않는다.
+ */
+public class AccountUserAuthenticationConverter extends DefaultUserAuthenticationConverter {
+
+    public static final String ACCOUNT_ID = "account_id";
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    @Override
+    public Map<String, ?> convertUserAuthentication(Authentication authentication) {
+        Map<String, Object> response = new LinkedHashMap<>(super.convertUserAuthentication(authentication));
+        if (authentication.getPrincipal() instanceof AccountAdapter) {
+            response.put(ACCOUNT_ID, ((AccountAdapter) authentication.getPrincipal()).getAccount().getId());
+        }
+        return response;
+    }
+
+    @Override
+    public Authentication extractAuthentication(Map<String, ?> map) {
+        if (!map.containsKey(USERNAME)) {
+            return null;
+        }
+        Set<AccountRole> roles = EnumSet.noneOf(AccountRole.class);
+        Object authorities = map.get(AUTHORITIES);
+        if (authorities instanceof Collection) {
+            for (Object authority : (Collection<?>) authorities) {
+                String name = authority.toString();
+                if (name.startsWith(ROLE_PREFIX)) {
+                    roles.add(AccountRole.valueOf(name.substring(ROLE_PREFIX.length())));
+                }
+            }
+        }
+        Object accountId = map.get(ACCOUNT_ID);
+        Account account = Account.builder()
+                .id(accountId instanceof Number ? ((Number) accountId).intValue() : null)
+                .email((String) map.get(USERNAME))
+                .password("")
+                .roles(roles)
+                .build();
+        AccountAdapter principal = new AccountAdapter(account);
+        return new UsernamePasswordAuthenticationToken(principal, "N/A", principal.getAuthorities());
+    }
+}
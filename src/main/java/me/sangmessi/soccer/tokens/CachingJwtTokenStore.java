@@ -0,0 +1,55 @@
+package me.sangmessi.soccer.tokens;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import me.sangmessi.soccer.configs.AppProperties;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 서명 검증과 클레임 파싱 결과를 토큰 값 기준으로 캐시하는 JwtTokenStore (my-app.token-store.type=jwt).
+ * 만료 여부는 DefaultTokenServices 가 캐시된 토큰의 expiration 으로 매번 확인한다.
+ */
+public class CachingJwtTokenStore extends JwtTokenStore implements MeterBinder {
+
+    private final Cache<String, OAuth2AccessToken> accessTokenCache;
+
+    private final Cache<String, OAuth2Authentication> authenticationCache;
+
+    public CachingJwtTokenStore(JwtAccessTokenConverter jwtTokenEnhancer, AppProperties.TokenStore properties) {
+        super(jwtTokenEnhancer);
+        this.accessTokenCache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaximumSize())
+                .expireAfterWrite(properties.getCacheExpireAfterWrite().toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        this.authenticationCache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaximumSize())
+                .expireAfterWrite(properties.getCacheExpireAfterWrite().toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue) {
+        return accessTokenCache.get(tokenValue, super::readAccessToken);
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(String token) {
+        return authenticationCache.get(token, super::readAuthentication);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, accessTokenCache, "tokens.access-token");
+        CaffeineCacheMetrics.monitor(registry, authenticationCache, "tokens.authentication");
+    }
+}
@@ -0,0 +1,291 @@
+package me.sangmessi.soccer.tokens;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import me.sangmessi.soccer.configs.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.common.util.SerializationUtils;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.DefaultAuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JPA 로 토큰을 저장하는 TokenStore (my-app.token-store.type=jpa).
+ * 토큰 값은 SHA-256 해시(token_key)로만 저장/조회하고, 최근 조회한 access token 은 노드 로컬 캐시에 둔다.
+ * 다른 노드에서 폐기된 토큰은 캐시 만료 시간(cache-expire-after-write) 동안 유효하게 보일 수 있다.
+ * 클래스가 바뀌어 역직렬화할 수 없는 행은 JdbcTokenStore 처럼 지우고 없는 토큰으로 다룬다.
+ */
+public class JpaTokenStore implements TokenStore, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(JpaTokenStore.class);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final StoredAccessTokenRepository accessTokenRepository;
+
+    private final StoredRefreshTokenRepository refreshTokenRepository;
+
+    private final AuthenticationKeyGenerator authenticationKeyGenerator = new DefaultAuthenticationKeyGenerator();
+
+    private final Cache<String, CachedAccessToken> accessTokenCache;
+
+    private final int purgeBatchSize;
+
+    public JpaTokenStore(StoredAccessTokenRepository accessTokenRepository,
+                         StoredRefreshTokenRepository refreshTokenRepository,
+                         AppProperties.TokenStore properties) {
+        this.accessTokenRepository = accessTokenRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.accessTokenCache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaximumSize())
+                .expireAfterWrite(properties.getCacheExpireAfterWrite().toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        this.purgeBatchSize = properties.getPurgeBatchSize();
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+        return readAuthentication(token.getValue());
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(String token) {
+        CachedAccessToken cachedAccessToken = loadAccessToken(extractTokenKey(token));
+        return cachedAccessToken == null ? null : cachedAccessToken.authentication;
+    }
+
+    @Override
+    public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        StoredAccessToken storedAccessToken = newAccessToken(token, authentication);
+        if (accessTokenRepository.existsById(storedAccessToken.getTokenKey())) {
+            storedAccessToken.markNotNew();
+        }
+        accessTokenRepository.save(storedAccessToken);
+        accessTokenCache.put(storedAccessToken.getTokenKey(), new CachedAccessToken(token, authentication));
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue) {
+        CachedAccessToken cachedAccessToken = loadAccessToken(extractTokenKey(tokenValue));
+        return cachedAccessToken == null ? null : cachedAccessToken.accessToken;
+    }
+
+    @Override
+    public void removeAccessToken(OAuth2AccessToken token) {
+        removeAccessTokens(List.of(extractTokenKey(token.getValue())));
+    }
+
+    @Override
+    public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+        StoredRefreshToken storedRefreshToken = new StoredRefreshToken();
+        storedRefreshToken.setTokenKey(extractTokenKey(refreshToken.getValue()));
+        storedRefreshToken.setToken(SerializationUtils.serialize(refreshToken));
+        storedRefreshToken.setAuthentication(SerializationUtils.serialize(authentication));
+        if (refreshToken instanceof ExpiringOAuth2RefreshToken) {
+            ExpiringOAuth2RefreshToken expiringRefreshToken = (ExpiringOAuth2RefreshToken) refreshToken;
+            if (expiringRefreshToken.getExpiration() != null) {
+                storedRefreshToken.setExpiration(expiringRefreshToken.getExpiration().toInstant());
+            }
+        }
+        if (refreshTokenRepository.existsById(storedRefreshToken.getTokenKey())) {
+            storedRefreshToken.markNotNew();
+        }
+        refreshTokenRepository.save(storedRefreshToken);
+    }
+
+    @Override
+    public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+        return refreshTokenRepository.findById(extractTokenKey(tokenValue))
+                .map(t -> this.<OAuth2RefreshToken>deserializeRefreshToken(t, t.getToken()))
+                .orElse(null);
+    }
+
+    @Override
+    public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+        return refreshTokenRepository.findById(extractTokenKey(token.getValue()))
+                .map(t -> this.<OAuth2Authentication>deserializeRefreshToken(t, t.getAuthentication()))
+                .orElse(null);
+    }
+
+    @Override
+    public void removeRefreshToken(OAuth2RefreshToken token) {
+        refreshTokenRepository.deleteByTokenKeys(List.of(extractTokenKey(token.getValue())));
+    }
+
+    @Override
+    public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+        List<String> tokenKeys = accessTokenRepository.findTokenKeysByRefreshTokenKey(extractTokenKey(refreshToken.getValue()));
+        if (!tokenKeys.isEmpty()) {
+            removeAccessTokens(tokenKeys);
+        }
+    }
+
+    @Override
+    public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+        String key = authenticationKeyGenerator.extractKey(authentication);
+        return accessTokenRepository.findFirstByAuthenticationKey(key)
+                .map(this::deserializeAccessToken)
+                .map(stored -> {
+                    if (!key.equals(authenticationKeyGenerator.extractKey(stored.authentication))) {
+                        removeAccessToken(stored.accessToken);
+                        storeAccessToken(stored.accessToken, authentication);
+                    }
+                    return stored.accessToken;
+                })
+                .orElse(null);
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
+        return deserializeAccessTokens(accessTokenRepository.findByClientIdAndUsername(clientId, userName));
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+        return deserializeAccessTokens(accessTokenRepository.findByClientId(clientId));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, accessTokenCache, "tokens.access-token");
+    }
+
+    /**
+     * 만료된 토큰을 purge-batch-size 단위로 나누어 삭제한다.
+     */
+    @Scheduled(fixedDelayString = "${my-app.token-store.purge-interval:PT1M}")
+    public void purgeExpiredTokens() {
+        Instant now = Instant.now();
+        Pageable batch = PageRequest.of(0, purgeBatchSize);
+
+        List<String> tokenKeys;
+        do {
+            tokenKeys = accessTokenRepository.findExpiredTokenKeys(now, batch);
+            if (!tokenKeys.isEmpty()) {
+                removeAccessTokens(tokenKeys);
+            }
+        } while (tokenKeys.size() == purgeBatchSize);
+
+        do {
+            tokenKeys = refreshTokenRepository.findExpiredTokenKeys(now, batch);
+            if (!tokenKeys.isEmpty()) {
+                refreshTokenRepository.deleteByTokenKeys(tokenKeys);
+            }
+        } while (tokenKeys.size() == purgeBatchSize);
+    }
+
+    StoredAccessToken newAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        StoredAccessToken storedAccessToken = new StoredAccessToken();
+        storedAccessToken.setTokenKey(extractTokenKey(token.getValue()));
+        storedAccessToken.setAuthenticationKey(authenticationKeyGenerator.extractKey(authentication));
+        if (token.getRefreshToken() != null) {
+            storedAccessToken.setRefreshTokenKey(extractTokenKey(token.getRefreshToken().getValue()));
+        }
+        storedAccessToken.setClientId(authentication.getOAuth2Request().getClientId());
+        storedAccessToken.setUsername(authentication.isClientOnly() ? null : authentication.getName());
+        if (token.getExpiration() != null) {
+            storedAccessToken.setExpiration(token.getExpiration().toInstant());
+        }
+        storedAccessToken.setToken(SerializationUtils.serialize(token));
+        storedAccessToken.setAuthentication(SerializationUtils.serialize(authentication));
+        return storedAccessToken;
+    }
+
+    static String extractTokenKey(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+                hex[i * 2 + 1] = HEX[digest[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    private CachedAccessToken loadAccessToken(String tokenKey) {
+        CachedAccessToken cachedAccessToken = accessTokenCache.getIfPresent(tokenKey);
+        if (cachedAccessToken != null) {
+            return cachedAccessToken;
+        }
+        return accessTokenRepository.findById(tokenKey)
+                .map(this::deserializeAccessToken)
+                .map(loaded -> {
+                    accessTokenCache.put(tokenKey, loaded);
+                    return loaded;
+                })
+                .orElse(null);
+    }
+
+    /**
+     * 역직렬화할 수 없으면 행을 지우고 null 을 돌려준다(Optional.map 이 빈 값으로 바꾼다).
+     */
+    private CachedAccessToken deserializeAccessToken(StoredAccessToken storedAccessToken) {
+        try {
+            return new CachedAccessToken(
+                    SerializationUtils.deserialize(storedAccessToken.getToken()),
+                    SerializationUtils.deserialize(storedAccessToken.getAuthentication()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Failed to deserialize access token {}; removing it", storedAccessToken.getTokenKey(), e);
+            removeAccessTokens(List.of(storedAccessToken.getTokenKey()));
+            return null;
+        }
+    }
+
+    private <T> T deserializeRefreshToken(StoredRefreshToken storedRefreshToken, byte[] bytes) {
+        try {
+            return SerializationUtils.deserialize(bytes);
+        } catch (IllegalArgumentException e) {
+            log.warn("Failed to deserialize refresh token {}; removing it", storedRefreshToken.getTokenKey(), e);
+            refreshTokenRepository.deleteByTokenKeys(List.of(storedRefreshToken.getTokenKey()));
+            return null;
+        }
+    }
+
+    private void removeAccessTokens(List<String> tokenKeys) {
+        accessTokenRepository.deleteByTokenKeys(tokenKeys);
+        accessTokenCache.invalidateAll(tokenKeys);
+    }
+
+    private Collection<OAuth2AccessToken> deserializeAccessTokens(List<StoredAccessToken> storedAccessTokens) {
+        return storedAccessTokens.stream()
+                .map(this::deserializeAccessToken)
+                .filter(Objects::nonNull)
+                .map(t -> t.accessToken)
+                .collect(Collectors.toList());
+    }
+
+    private static final class CachedAccessToken {
+        private final OAuth2AccessToken accessToken;
+        private final OAuth2Authentication authentication;
+
+        private CachedAccessToken(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+            this.accessToken = accessToken;
+            this.authentication = authentication;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package me.sangmessi.soccer.tokens;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 토큰 발급(storeAccessToken)과 조회(readAccessToken, readAuthentication) 시간을 기록하는 TokenStore.
+ * tokens.read 의 result 태그는 hit(토큰 있음), miss(없음), failure(예외) 중 하나다.
+ */
+public class MeteredTokenStore implements TokenStore {
+
+    private final TokenStore delegate;
+
+    private final Timer issueSuccess;
+    private final Timer issueFailure;
+    private final Timer readAccessTokenHit;
+    private final Timer readAccessTokenMiss;
+    private final Timer readAccessTokenFailure;
+    private final Timer readAuthenticationHit;
+    private final Timer readAuthenticationMiss;
+    private final Timer readAuthenticationFailure;
+
+    public MeteredTokenStore(TokenStore delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.issueSuccess = registry.timer("tokens.issue", "result", "success");
+        this.issueFailure = registry.timer("tokens.issue", "result", "failure");
+        this.readAccessTokenHit = registry.timer("tokens.read", "type", "access-token", "result", "hit");
+        this.readAccessTokenMiss = registry.timer("tokens.read", "type", "access-token", "result", "miss");
+        this.readAccessTokenFailure = registry.timer("tokens.read", "type", "access-token", "result", "failure");
+        this.readAuthenticationHit = registry.timer("tokens.read", "type", "authentication", "result", "hit");
+        this.readAuthenticationMiss = registry.timer("tokens.read", "type", "authentication", "result", "miss");
+        this.readAuthenticationFailure = registry.timer("tokens.read", "type", "authentication", "result", "failure");
+    }
+
+    public TokenStore getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            delegate.storeAccessToken(token, authentication);
+            success = true;
+        } finally {
+            (success ? issueSuccess : issueFailure).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue) {
+        long start = System.nanoTime();
+        Timer timer = readAccessTokenFailure;
+        try {
+            OAuth2AccessToken accessToken = delegate.readAccessToken(tokenValue);
+            timer = accessToken != null ? readAccessTokenHit : readAccessTokenMiss;
+            return accessToken;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+        return readAuthentication(token.getValue());
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(String token) {
+        long start = System.nanoTime();
+        Timer timer = readAuthenticationFailure;
+        try {
+            OAuth2Authentication authentication = delegate.readAuthentication(token);
+            timer = authentication != null ? readAuthenticationHit : readAuthenticationMiss;
+            return authentication;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void removeAccessToken(OAuth2AccessToken token) {
+        delegate.removeAccessToken(token);
+    }
+
+    @Override
+    public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+        delegate.storeRefreshToken(refreshToken, authentication);
+    }
+
+    @Override
+    public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+        return delegate.readRefreshToken(tokenValue);
+    }
+
+    @Override
+    public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+        return delegate.readAuthenticationForRefreshToken(token);
+    }
+
+    @Override
+    public void removeRefreshToken(OAuth2RefreshToken token) {
+        delegate.removeRefreshToken(token);
+    }
+
+    @Override
+    public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+        delegate.removeAccessTokenUsingRefreshToken(refreshToken);
+    }
+
+    @Override
+    public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+        return delegate.getAccessToken(authentication);
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
+        return delegate.findTokensByClientIdAndUserName(clientId, userName);
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+        return delegate.findTokensByClientId(clientId);
+    }
+}
@@ -0,0 +1,33 @@
+package me.sangmessi.soccer.tokens;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StoredAccessTokenRepository extends JpaRepository<StoredAccessToken, String> {
+
+    Optional<StoredAccessToken> findFirstByAuthenticationKey(String authenticationKey);
+
+    List<StoredAccessToken> findByClientId(String clientId);
+
+    List<StoredAccessToken> findByClientIdAndUsername(String clientId, String username);
+
+    @Query("select t.tokenKey from StoredAccessToken t where t.refreshTokenKey = :refreshTokenKey")
+    List<String> findTokenKeysByRefreshTokenKey(@Param("refreshTokenKey") String refreshTokenKey);
+
+    @Query("select t.tokenKey from StoredAccessToken t where t.expiration < :now")
+    List<String> findExpiredTokenKeys(@Param("now") Instant now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from StoredAccessToken t where t.tokenKey in :tokenKeys")
+    int deleteByTokenKeys(@Param("tokenKeys") Collection<String> tokenKeys);
+}
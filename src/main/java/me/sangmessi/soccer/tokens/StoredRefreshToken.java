@@ -0,0 +1,47 @@
+package me.sangmessi.soccer.tokens;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "oauth_refresh_token", indexes = {
+        @Index(name = "idx_refresh_token_expiration", columnList = "expiration")
+})
+@Getter @Setter @NoArgsConstructor
+public class StoredRefreshToken implements Persistable<String> {
+
+    @Id
+    @Column(name = "token_key", length = 64)
+    private String tokenKey;
+    @Column(name = "expiration")
+    private Instant expiration;
+    @Column(name = "token", length = 16384)
+    private byte[] token;
+    @Column(name = "authentication", length = 16384)
+    private byte[] authentication;
+
+    @Transient
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private boolean newToken = true;
+
+    @Override
+    public String getId() {
+        return tokenKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newToken;
+    }
+
+    @PostLoad @PostPersist
+    void markNotNew() {
+        this.newToken = false;
+    }
+}
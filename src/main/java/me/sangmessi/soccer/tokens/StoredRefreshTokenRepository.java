@@ -0,0 +1,23 @@
+package me.sangmessi.soccer.tokens;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface StoredRefreshTokenRepository extends JpaRepository<StoredRefreshToken, String> {
+
+    @Query("select t.tokenKey from StoredRefreshToken t where t.expiration < :now")
+    List<String> findExpiredTokenKeys(@Param("now") Instant now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from StoredRefreshToken t where t.tokenKey in :tokenKeys")
+    int deleteByTokenKeys(@Param("tokenKeys") Collection<String> tokenKeys);
+}
@@ -0,0 +1,7 @@
+-- email 은 로그인 아이디이자 커서 페이징의 정렬 키이므로 NOT NULL 로 바꾼다 (PostgreSQL).
+-- email 이 없는 행은 로그인할 수 없으므로, 먼저 SELECT id FROM account WHERE email IS NULL 로 확인하고 정리한 뒤 실행한다.
+BEGIN;
+
+ALTER TABLE account ALTER COLUMN email SET NOT NULL;
+
+COMMIT;
@@ -0,0 +1,14 @@
+-- Account.roles 를 account_roles 테이블에서 account.roles 비트마스크 컬럼으로 옮긴다 (PostgreSQL).
+-- 비트 값은 AccountRole.mask 와 같아야 한다: ADMIN = 1, USER = 2.
+BEGIN;
+
+ALTER TABLE account ADD COLUMN roles INTEGER NOT NULL DEFAULT 0;
+
+UPDATE account a
+SET roles = coalesce((SELECT bit_or(CASE r.roles WHEN 'ADMIN' THEN 1 WHEN 'USER' THEN 2 ELSE 0 END)
+                      FROM account_roles r
+                      WHERE r.account_id = a.id), 0);
+
+DROP TABLE account_roles;
+
+COMMIT;
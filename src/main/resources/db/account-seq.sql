@@ -0,0 +1,9 @@
+-- Account.id 를 hibernate_sequence 대신 account_seq(allocationSize = 50)로 만든다 (PostgreSQL).
+-- Hibernate 의 pooled optimizer 는 nextval 값 v 에서 (v - 49) ~ v 를 쓰므로 첫 nextval 이 max(id) + 50 이 되게 맞춘다.
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS account_seq INCREMENT BY 50;
+
+SELECT setval('account_seq', coalesce(max(id), 0) + 50, false) FROM account;
+
+COMMIT;
@@ -0,0 +1,11 @@
+-- 증분 내보내기(If-Modified-Since)를 위해 account.updated_at 컬럼과 인덱스를 추가한다 (PostgreSQL).
+-- 기존 행은 마이그레이션 시각으로 채운다.
+BEGIN;
+
+ALTER TABLE account ADD COLUMN updated_at TIMESTAMP;
+
+UPDATE account SET updated_at = now() WHERE updated_at IS NULL;
+
+CREATE INDEX account_updated_at_idx ON account (updated_at);
+
+COMMIT;
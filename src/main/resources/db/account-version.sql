@@ -0,0 +1,7 @@
+-- 낙관적 잠금과 ETag 를 위해 account.version 컬럼을 추가한다 (PostgreSQL).
+-- 기존 행은 0 에서 시작한다.
+BEGIN;
+
+ALTER TABLE account ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+COMMIT;
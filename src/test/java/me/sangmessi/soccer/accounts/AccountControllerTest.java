@@ -1,20 +1,41 @@
 package me.sangmessi.soccer.accounts;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import me.sangmessi.soccer.common.BaseControllerTest;
 import me.sangmessi.soccer.commons.TestDescription;
 import me.sangmessi.soccer.configs.AppProperties;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.oauth2.common.util.Jackson2JsonParser;
 import org.springframework.test.web.servlet.ResultActions;
-
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.restdocs.headers.HeaderDocumentation.*;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.linkWithRel;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.links;
@@ -24,6 +45,8 @@ import static org.springframework.restdocs.request.RequestDocumentation.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -38,6 +61,9 @@ public class AccountControllerTest extends BaseControllerTest {
     @Autowired
     AppProperties appProperties;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
 
     @Before
     public void setup(){
@@ -99,6 +125,71 @@ public class AccountControllerTest extends BaseControllerTest {
         ;
     }
 
+    @Test
+    @TestDescription("같은 이메일로 동시에 가입하면 한 건만 생성되고 나머지는 400 으로 응답하기")
+    public void createUserAccountConcurrently() throws Exception {
+        String bearerToken = getBearerToken();
+        String content = objectMapper.writeValueAsString(Account.builder()
+                .email("concurrent@gmail.com")
+                .password("password")
+                .name("동시가입")
+                .roles(Set.of(AccountRole.USER))
+                .build());
+        int requests = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/accounts")
+                            .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                            .contentType(MediaType.APPLICATION_JSON_UTF8)
+                            .accept(MediaTypes.HAL_JSON)
+                            .content(content))
+                            .andReturn().getResponse();
+                }));
+            }
+            start.countDown();
+
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<MockHttpServletResponse> future : futures) {
+                MockHttpServletResponse response = future.get(30, TimeUnit.SECONDS);
+                statuses.add(response.getStatus());
+                if (response.getStatus() == HttpStatus.BAD_REQUEST.value()) {
+                    assertThat(response.getContentAsString()).contains("This account has already been registered (concurrent@gmail.com)");
+                }
+            }
+            assertThat(statuses).containsOnly(HttpStatus.CREATED.value(), HttpStatus.BAD_REQUEST.value());
+            assertThat(statuses.stream().filter(s -> s == HttpStatus.CREATED.value()).count()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @TestDescription("목록 한 페이지를 조회할 때 select 와 count 두 개의 SQL 만 실행하기")
+    public void getUsersStatementCount() throws Exception {
+        IntStream.range(0, 30).forEach(this::generateAccounts);
+        String bearerToken = getBearerToken();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        this.mockMvc.perform(get("/api/accounts")
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .accept(MediaTypes.HAL_JSON)
+                    .param("page", "1")
+                    .param("size", "10")
+                    .param("sort", "name,DESC"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.accountList.length()").value(10))
+                .andExpect(jsonPath("_embedded.accountList[0].roles").isNotEmpty())
+                .andExpect(jsonPath("_embedded.accountList[0].password").doesNotExist());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
     @Test
     @TestDescription("사용자 계정 정보와 함께 30개의 사용자를 10개씩 두번 조회하기")
     public void getUsers()  throws Exception {
@@ -156,6 +247,152 @@ public class AccountControllerTest extends BaseControllerTest {
                 ;
     }
 
+    @Test
+    @TestDescription("스트리밍 방식으로 조회해도 일반 목록 조회와 같은 HAL 응답을 받기")
+    public void getUsersStreaming() throws Exception {
+        IntStream.range(0, 30).forEach(this::generateAccounts);
+        String bearerToken = getBearerToken();
+
+        String paged = this.mockMvc.perform(get("/api/accounts")
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .accept(MediaTypes.HAL_JSON)
+                    .param("page", "1")
+                    .param("size", "10")
+                    .param("sort", "name,DESC"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String streamed = this.mockMvc.perform(get("/api/accounts")
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .accept(MediaTypes.HAL_JSON)
+                    .param("stream", "true")
+                    .param("page", "1")
+                    .param("size", "10")
+                    .param("sort", "name,DESC"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaTypes.HAL_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("_links.next").exists())
+                .andExpect(jsonPath("_links.create-account").exists())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode expected = objectMapper.readTree(paged);
+        JsonNode actual = objectMapper.readTree(streamed);
+        assertThat(actual.get("_embedded")).isEqualTo(expected.get("_embedded"));
+        assertThat(actual.get("page")).isEqualTo(expected.get("page"));
+        assertThat(actual.get("_links").fieldNames())
+                .containsExactlyInAnyOrderElementsOf(() -> expected.get("_links").fieldNames());
+
+        this.mockMvc.perform(get("/api/accounts")
+                    .accept(MediaTypes.HAL_JSON)
+                    .param("stream", "true")
+                    .param("page", "5")
+                    .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded").doesNotExist())
+                .andExpect(jsonPath("page.totalElements").value(31));
+    }
+
+    @Test
+    @TestDescription("커서 방식으로 30개의 사용자를 10개씩 조회하기")
+    public void getUsersByCursor() throws Exception {
+        IntStream.range(0, 30).forEach(this::generateAccounts);
+
+        this.mockMvc.perform(get("/api/accounts")
+                    .header(HttpHeaders.AUTHORIZATION, getBearerToken())
+                    .accept(MediaTypes.HAL_JSON)
+                    .param("cursor", "")
+                    .param("size", "10")
+                    .param("sort", "email,ASC")
+                    .param("count", "true")
+        )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.accountList.length()").value(10))
+                .andExpect(jsonPath("totalElements").value(31))
+                .andExpect(jsonPath("_links.self").exists())
+                .andExpect(jsonPath("_links.next").exists())
+                .andExpect(jsonPath("_links.profile").exists())
+                .andDo(document("get-accounts-cursor",
+                        links(
+                                linkWithRel("self").description("link to self"),
+                                linkWithRel("next").description("Next page to list of user"),
+                                linkWithRel("create-account").description("link to create user"),
+                                linkWithRel("profile").description("link to profile")
+                        ),
+                        requestParameters(
+                                parameterWithName("cursor").description("The cursor from the next link (empty for the first page)"),
+                                parameterWithName("size").description("The size of elements"),
+                                parameterWithName("sort").description("sorting (id or email)"),
+                                parameterWithName("count").description("Whether to count total elements")
+                        ),
+                        relaxedResponseFields(
+                                fieldWithPath("totalElements").description("The number of total elements (count=true)"),
+                                fieldWithPath("_embedded.accountList").description("list of User"),
+                                fieldWithPath("_links.self.href").description("Link to self"),
+                                fieldWithPath("_links.next.href").description("Link to next page")
+                        )
+                ))
+        ;
+
+        Account last = this.accountRepository.findByEmail("TEST18@gmail.com").orElseThrow();
+        String next = AccountCursor.first(Sort.by("email"))
+                .next(new AccountSummary(last.getId(), last.getEmail(), last.getName(), last.getRoles()))
+                .encode();
+        this.mockMvc.perform(get("/api/accounts")
+                    .accept(MediaTypes.HAL_JSON)
+                    .param("cursor", next)
+                    .param("size", "10")
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.accountList.length()").value(10))
+                .andExpect(jsonPath("_embedded.accountList[0].email").value("TEST19@gmail.com"))
+        ;
+    }
+
+    @Test
+    @TestDescription("커서의 next 링크를 끝까지 따라가면 모든 계정을 한 번씩 email 순서로 받고, 비밀번호는 없다")
+    public void followCursorToEnd() throws Exception {
+        IntStream.range(0, 25).forEach(this::generateAccounts);
+        List<String> expected = this.accountRepository.findAll(Sort.by("email")).stream()
+                .map(Account::getEmail)
+                .collect(Collectors.toList());
+
+        List<String> emails = new ArrayList<>();
+        MockHttpServletRequestBuilder request = get("/api/accounts")
+                .param("cursor", "")
+                .param("size", "7")
+                .param("sort", "email,ASC");
+        while (request != null) {
+            String content = this.mockMvc.perform(request.accept(MediaTypes.HAL_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("_embedded.accountList[*].password").isEmpty())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(content);
+            page.path("_embedded").path("accountList").forEach(account -> emails.add(account.get("email").asText()));
+            JsonNode next = page.path("_links").path("next");
+            request = next.isMissingNode() ? null : get(URI.create(next.get("href").asText()));
+        }
+
+        assertThat(emails).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @TestDescription("이메일 없이 가입하면 400 으로 응답하기")
+    public void createUserAccountWithoutEmail() throws Exception {
+        this.mockMvc.perform(post("/api/accounts")
+                    .header(HttpHeaders.AUTHORIZATION, getBearerToken())
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .accept(MediaTypes.HAL_JSON)
+                    .content(objectMapper.writeValueAsString(Account.builder()
+                            .password("password")
+                            .name("이메일없음")
+                            .roles(Set.of(AccountRole.USER))
+                            .build())))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("content[0].field").value("email"));
+    }
+
     @Test
     @TestDescription("ID 를 통해서 사용자 계정을 조회한다. ")
     public void getUserById() throws Exception {
@@ -202,6 +439,95 @@ public class AccountControllerTest extends BaseControllerTest {
         ;
     }
 
+    @Test
+    @TestDescription("약한 ETag 로 조건부 조회하면 version 만 조회해서 304 를 받고, If-Match 의 version 이 맞지 않는 수정은 412 를 받기")
+    public void conditionalGetAndUpdate() throws Exception {
+        Account account = this.generateAccounts(102);
+        String bearerToken = getBearerToken();
+
+        MockHttpServletResponse response = this.mockMvc.perform(get("/api/accounts/{id}", account.getId())
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .accept(MediaTypes.HAL_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"0\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION))
+                .andExpect(jsonPath("version").value(0))
+                .andReturn().getResponse();
+        String eTag = response.getHeader(HttpHeaders.ETAG);
+        String version = "\"" + objectMapper.readTree(response.getContentAsString()).get("version").asLong() + "\"";
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        this.mockMvc.perform(get("/api/accounts/{id}", account.getId())
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                    .accept(MediaTypes.HAL_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        this.mockMvc.perform(patch("/api/accounts/{id}", account.getId())
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .header(HttpHeaders.IF_MATCH, eTag)
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .accept(MediaTypes.HAL_JSON)
+                    .content("{\"name\":\"Weak Match\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        this.mockMvc.perform(patch("/api/accounts/{id}", account.getId())
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .header(HttpHeaders.IF_MATCH, version)
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .accept(MediaTypes.HAL_JSON)
+                    .content("{\"name\":\"Versioned User\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""));
+
+        this.mockMvc.perform(patch("/api/accounts/{id}", account.getId())
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .header(HttpHeaders.IF_MATCH, version)
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .accept(MediaTypes.HAL_JSON)
+                    .content("{\"name\":\"Lost Update\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        this.mockMvc.perform(get("/api/accounts/{id}", account.getId())
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                    .accept(MediaTypes.HAL_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name").value("Versioned User"));
+    }
+
+    @Test
+    @TestDescription("목록의 ETag 로 조건부 조회하면 304 를 받고, 계정이 추가되면 새 목록을 받기")
+    public void conditionalGetUsers() throws Exception {
+        IntStream.range(0, 3).forEach(this::generateAccounts);
+        String bearerToken = getBearerToken();
+
+        String eTag = this.mockMvc.perform(get("/api/accounts")
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .accept(MediaTypes.HAL_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/\"")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc.perform(get("/api/accounts")
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                    .accept(MediaTypes.HAL_JSON))
+                .andExpect(status().isNotModified());
+
+        this.generateAccounts(103);
+        this.mockMvc.perform(get("/api/accounts")
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                    .accept(MediaTypes.HAL_JSON))
+                .andExpect(status().isOk());
+    }
+
     @Test
     @TestDescription("기존 사용자를 정상적으로 수정하기 ")
     public void updateAccount() throws Exception {
@@ -254,6 +580,184 @@ public class AccountControllerTest extends BaseControllerTest {
 
     }
 
+    @Test
+    @TestDescription("PATCH 는 본문에 있는 속성만 수정하고 나머지와 비밀번호 해시는 그대로 둔다")
+    public void patchAccount() throws Exception {
+        Account account = this.generateAccounts(101);
+        String passwordHash = account.getPassword();
+
+        this.mockMvc.perform(patch("/api/accounts/{id}", account.getId())
+                .header(HttpHeaders.AUTHORIZATION, getBearerToken())
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaTypes.HAL_JSON)
+                .content("{\"name\":\"Patched User\"}")
+            )
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("name").value("Patched User"))
+            .andExpect(jsonPath("email").value(account.getEmail()))
+            .andExpect(jsonPath("roles.length()").value(2))
+            .andDo(document("patch-account",
+                    links(
+                            linkWithRel("self").description("link to self"),
+                            linkWithRel("get-account").description("link to get account"),
+                            linkWithRel("profile").description("link to profile")
+                    ),
+                    relaxedRequestFields(
+                            fieldWithPath("name").description("name of User")
+                    )
+            ));
+
+        Account patched = this.accountRepository.findById(account.getId()).get();
+        assertThat(patched.getName()).isEqualTo("Patched User");
+        assertThat(patched.getPassword()).isEqualTo(passwordHash);
+    }
+
+    @Test
+    @TestDescription("CSV 로 여러 사용자를 한 번에 등록하고 줄마다 결과를 받기")
+    public void importAccounts() throws Exception {
+        this.generateAccounts(1);
+        String csv = "email,password,name,roles\n"
+                + "import1@gmail.com,password,\"Kim, Sangmin\",USER|ADMIN\n"
+                + "TEST1@gmail.com,password,exists,USER\n"
+                + "import1@gmail.com,password,duplicated,USER\n"
+                + "import2@gmail.com,,no password,USER\n"
+                + "import3@gmail.com,password,default role,\n"
+                + "import4@gmail.com,password,unknown role,CAPTAIN\n";
+
+        MockHttpServletResponse response = this.mockMvc.perform(post("/api/accounts/import")
+                    .header(HttpHeaders.AUTHORIZATION, getBearerToken())
+                    .contentType(AccountImportService.CSV_VALUE)
+                    .accept(AccountImportService.NDJSON_VALUE)
+                    .content(csv))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andDo(document("import-accounts",
+                        requestHeaders(
+                                headerWithName(HttpHeaders.ACCEPT).description("accept header"),
+                                headerWithName(HttpHeaders.CONTENT_TYPE).description("text/csv or application/x-ndjson")
+                        )
+                ))
+                .andReturn().getResponse();
+
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : response.getContentAsString().split("\n")) {
+            results.add(this.objectMapper.readTree(line));
+        }
+        assertThat(results).hasSize(6);
+        assertImportResult(results.get(0), 2, "CREATED", "import1@gmail.com", null);
+        assertImportResult(results.get(1), 3, "REJECTED", "TEST1@gmail.com", "This account has already been registered (TEST1@gmail.com)");
+        assertImportResult(results.get(2), 4, "REJECTED", "import1@gmail.com", "Duplicated email in request (import1@gmail.com)");
+        assertImportResult(results.get(3), 5, "REJECTED", "import2@gmail.com", "email and password are required");
+        assertImportResult(results.get(4), 6, "CREATED", "import3@gmail.com", null);
+        assertImportResult(results.get(5), 7, "REJECTED", null, "Unknown role");
+        assertThat(results.get(0).get("id").asInt()).isEqualTo(this.accountRepository.findByEmail("import1@gmail.com").get().getId());
+
+        assertThat(this.accountRepository.findByEmail("import1@gmail.com").get().getName()).isEqualTo("Kim, Sangmin");
+        assertThat(this.accountRepository.findByEmail("import3@gmail.com").get().getRoles()).containsExactly(AccountRole.USER);
+        assertThat(this.accountRepository.findByEmail("import2@gmail.com")).isEmpty();
+        assertThat(this.accountRepository.findAll().stream().filter(a -> a.getEmail().equals("TEST1@gmail.com")).count()).isEqualTo(1);
+    }
+
+    @Test
+    @TestDescription("이름에 줄바꿈(\\r, \\n)이 있어도 CSV 로 등록한 값 그대로 내보내고 다시 읽기")
+    public void csvRoundTripWithLineBreaksInName() throws Exception {
+        String name = "Kim\r\nSangmin\rJr\n\"II\"";
+        String bearerToken = getBearerToken();
+        String csv = "email,password,name,roles\r\n"
+                + "linebreak@gmail.com,password,\"" + name.replace("\"", "\"\"") + "\",USER\r\n"
+                + "after@gmail.com,password,after,USER\r\n";
+
+        MockHttpServletResponse response = this.mockMvc.perform(post("/api/accounts/import")
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .contentType(AccountImportService.CSV_VALUE)
+                    .accept(AccountImportService.NDJSON_VALUE)
+                    .content(csv))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String[] results = response.getContentAsString().split("\n");
+        assertThat(results).hasSize(2);
+        assertImportResult(this.objectMapper.readTree(results[0]), 2, "CREATED", "linebreak@gmail.com", null);
+        assertImportResult(this.objectMapper.readTree(results[1]), 6, "CREATED", "after@gmail.com", null);
+        assertThat(this.accountRepository.findByEmail("linebreak@gmail.com").get().getName()).isEqualTo(name);
+
+        MockHttpServletResponse export = this.mockMvc.perform(get("/api/accounts/export")
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .accept(AccountImportService.CSV_VALUE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        List<List<String>> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(export.getContentAsString()))) {
+            String record;
+            while ((record = AccountImportService.readCsvRecord(reader)) != null) {
+                records.add(AccountImportService.parseCsvLine(record));
+            }
+        }
+        assertThat(records.get(0)).containsExactly(AccountExportService.CSV_HEADER.split(","));
+        assertThat(records).allMatch(values -> values.size() == 5);
+        assertThat(records).filteredOn(values -> values.get(1).equals("linebreak@gmail.com"))
+                .extracting(values -> values.get(2))
+                .containsExactly(name);
+    }
+
+    @Test
+    @TestDescription("관리자가 모든 사용자를 CSV 와 gzip 으로 압축한 NDJSON 으로 내보내고, 변경이 없으면 304 받기")
+    public void exportAccounts() throws Exception {
+        IntStream.range(0, 5).forEach(this::generateAccounts);
+        String bearerToken = getBearerToken();
+
+        MockHttpServletResponse csv = this.mockMvc.perform(get("/api/accounts/export")
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .accept(AccountImportService.CSV_VALUE))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andDo(document("export-accounts",
+                        requestHeaders(
+                                headerWithName(HttpHeaders.AUTHORIZATION).description("bearer token of an admin"),
+                                headerWithName(HttpHeaders.ACCEPT).description("application/x-ndjson (default) or text/csv")
+                        ),
+                        responseHeaders(
+                                headerWithName(HttpHeaders.CONTENT_TYPE).description("Content Type"),
+                                headerWithName(HttpHeaders.LAST_MODIFIED).description("Time of the most recent change; send it back as If-Modified-Since to export only later changes")
+                        )
+                ))
+                .andReturn().getResponse();
+        String[] lines = csv.getContentAsString().split("\n");
+        assertThat(lines[0]).isEqualTo(AccountExportService.CSV_HEADER);
+        assertThat(lines).hasSize(1 + 6);
+        assertThat(csv.getContentAsString()).doesNotContain("password");
+
+        MockHttpServletResponse ndjson = this.mockMvc.perform(get("/api/accounts/export")
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(ndjson.getContentAsByteArray())), StandardCharsets.UTF_8))) {
+            List<String> records = reader.lines().collect(Collectors.toList());
+            assertThat(records).hasSize(6);
+            assertThat(objectMapper.readTree(records.get(0)).get("roles").isArray()).isTrue();
+        }
+
+        this.mockMvc.perform(get("/api/accounts/export")
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .header(HttpHeaders.IF_MODIFIED_SINCE, csv.getHeader(HttpHeaders.LAST_MODIFIED)))
+                .andExpect(status().isNotModified());
+
+        this.mockMvc.perform(get("/api/accounts/export"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private static void assertImportResult(JsonNode result, int line, String status, String email, String message) {
+        assertThat(result.get("line").asInt()).isEqualTo(line);
+        assertThat(result.get("status").asText()).isEqualTo(status);
+        assertThat(result.path("email").textValue()).isEqualTo(email);
+        assertThat(result.path("message").textValue()).isEqualTo(message);
+        assertThat(result.has("id")).isEqualTo("CREATED".equals(status));
+    }
+
     private Account generateAccounts(int index) {
         Account account = Account.builder()
                     .name("TEST"+index)
@@ -0,0 +1,110 @@
+package me.sangmessi.soccer.accounts;
+
+import me.sangmessi.soccer.configs.AppProperties;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class AccountEmailFilterTest {
+
+    @Autowired
+    AccountEmailFilter accountEmailFilter;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    public void accountCommittedDuringRebuildIsKept() throws Exception {
+        CountDownLatch flushed = new CountDownLatch(1);
+        CountDownLatch scanned = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+
+        // flush 는 rebuild 전에, 커밋은 스캔이 끝난 뒤 filter 를 바꾸기 전에 일어나게 한다.
+        CompletableFuture<Void> signup = CompletableFuture.runAsync(() -> {
+            transactionTemplate.execute(status -> {
+                accountRepository.saveAndFlush(Account.builder()
+                        .email("rebuild@gmail.com")
+                        .password("password")
+                        .name("rebuild")
+                        .roles(Set.of(AccountRole.USER))
+                        .build());
+                flushed.countDown();
+                await(scanned);
+                return null;
+            });
+            committed.countDown();
+        });
+        assertThat(flushed.await(10, TimeUnit.SECONDS)).isTrue();
+
+        JdbcTemplate original = accountEmailFilter.jdbcTemplate;
+        accountEmailFilter.jdbcTemplate = new JdbcTemplate(dataSource) {
+            @Override
+            public void query(PreparedStatementCreator psc, RowCallbackHandler rch) {
+                super.query(psc, rch);
+                scanned.countDown();
+                await(committed);
+            }
+        };
+        try {
+            accountEmailFilter.rebuild();
+        } finally {
+            accountEmailFilter.jdbcTemplate = original;
+        }
+        signup.get(10, TimeUnit.SECONDS);
+
+        assertThat(accountEmailFilter.mightExist("rebuild@gmail.com")).isTrue();
+        assertThat(accountEmailFilter.mightExist("never-registered@gmail.com")).isFalse();
+    }
+
+    @Test
+    public void missIsConfirmedWithinLimit() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getEmailFilter().setEnabled(true);
+        appProperties.getEmailFilter().setExpectedAccounts(1_000);
+        appProperties.getEmailFilter().setMissConfirmationsPerSecond(0.1);
+        AccountEmailFilter filter = new AccountEmailFilter(appProperties);
+        filter.jdbcTemplate = new JdbcTemplate(dataSource);
+        filter.rebuild();
+
+        assertThat(filter.mightExist("other-node@gmail.com")).isTrue();
+        assertThat(filter.mightExist("other-node@gmail.com")).isFalse();
+
+        filter.add("other-node@gmail.com");
+        assertThat(filter.mightExist("other-node@gmail.com")).isTrue();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
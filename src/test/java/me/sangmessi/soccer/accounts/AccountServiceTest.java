@@ -1,20 +1,31 @@
 package me.sangmessi.soccer.accounts;
 
+import me.sangmessi.soccer.passwords.HashingPasswordEncoder;
 import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -30,9 +41,18 @@ public class AccountServiceTest {
     @Autowired
     AccountService accountService;
 
+    @Autowired
+    AccountRepository accountRepository;
+
     @Autowired
     PasswordEncoder passwordEncoder;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     @Test
     public void saveUserAccount() {
         String email = "messi1913@gmail.com";
@@ -52,6 +72,157 @@ public class AccountServiceTest {
         assertThat(this.passwordEncoder.matches(password, userDetails.getPassword())).isTrue();
     }
 
+    @Test
+    public void loadUserAfterPasswordChange() {
+        String email = "cache@gmail.com";
+        Account account = Account.builder()
+                .email(email)
+                .password("before")
+                .name("캐시")
+                .roles(Set.of(AccountRole.USER))
+                .build();
+        this.accountService.saveAccount(account);
+        this.accountService.loadUserByUsername(email);
+
+        account.setPassword("after");
+        this.accountService.saveAccount(account);
+
+        UserDetails userDetails = accountService.loadUserByUsername(email);
+        assertThat(this.passwordEncoder.matches("after", userDetails.getPassword())).isTrue();
+    }
+
+    @Test
+    public void secondLevelCache() {
+        Account account = Account.builder()
+                .email("l2cache@gmail.com")
+                .password("password")
+                .name("before")
+                .roles(Set.of(AccountRole.USER))
+                .build();
+        this.accountService.saveAccount(account);
+
+        this.accountRepository.findById(account.getId());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        this.accountRepository.findById(account.getId());
+        assertThat(statistics.getDomainDataRegionStatistics("account").getHitCount()).isPositive();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        account.setName("after");
+        this.accountService.saveAccount(account);
+        assertThat(this.accountRepository.findById(account.getId()).get().getName()).isEqualTo("after");
+        assertThat(this.accountRepository.findByEmail("l2cache@gmail.com").get().getName()).isEqualTo("after");
+    }
+
+    @Test
+    public void updateAccountHashesOnlyChangedPassword() {
+        Account account = this.accountService.createAccount(Account.builder()
+                .email("update@gmail.com")
+                .password("password")
+                .name("before")
+                .roles(Set.of(AccountRole.USER))
+                .build());
+        String hash = account.getPassword();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        Account unchanged = this.accountService.updateAccount(this.accountRepository.findById(account.getId()).get(),
+                Account.builder().email("update@gmail.com").password(hash).name("before").build());
+        assertThat(unchanged.getPassword()).isEqualTo(hash);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+
+        statistics.clear();
+        Account renamed = this.accountService.updateAccount(this.accountRepository.findById(account.getId()).get(),
+                Account.builder().name("after").build());
+        assertThat(renamed.getPassword()).isEqualTo(hash);
+        assertThat(renamed.getEmail()).isEqualTo("update@gmail.com");
+        assertThat(renamed.getRoles()).isEqualTo(EnumSet.of(AccountRole.USER));
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+
+        String encoded = this.passwordEncoder.encode("encoded");
+        Account hashed = this.accountService.updateAccount(this.accountRepository.findById(account.getId()).get(),
+                Account.builder().password(encoded).build());
+        assertThat(hashed.getPassword()).isNotEqualTo(encoded);
+        assertThat(this.passwordEncoder.matches(encoded, hashed.getPassword())).isTrue();
+
+        Account changed = this.accountService.updateAccount(this.accountRepository.findById(account.getId()).get(),
+                Account.builder().password("changed").build());
+        assertThat(this.passwordEncoder.matches("changed", changed.getPassword())).isTrue();
+        assertThat(this.passwordEncoder.matches("changed",
+                this.accountService.loadUserByUsername("update@gmail.com").getPassword())).isTrue();
+    }
+
+    @Test
+    public void updatePasswordLeavesLoadedAccountUnchanged() {
+        this.accountService.saveAccount(Account.builder()
+                .email("rehash@gmail.com")
+                .password("password")
+                .name("리해시")
+                .roles(Set.of(AccountRole.USER))
+                .build());
+        UserDetails loaded = this.accountService.loadUserByUsername("rehash@gmail.com");
+        String hash = loaded.getPassword();
+
+        String newHash = this.passwordEncoder.encode("password");
+        UserDetails updated = this.accountService.updatePassword(loaded, newHash);
+
+        assertThat(loaded.getPassword()).isEqualTo(hash);
+        assertThat(((AccountAdapter) loaded).getAccount().getPassword()).isEqualTo(hash);
+        assertThat(updated.getPassword()).isEqualTo(newHash);
+        assertThat(((AccountAdapter) updated).getAccount().getId()).isEqualTo(((AccountAdapter) loaded).getAccount().getId());
+        assertThat(this.accountService.loadUserByUsername("rehash@gmail.com").getPassword()).isEqualTo(newHash);
+    }
+
+    @Test
+    public void rolesStoredAsBitmask() {
+        Account account = Account.builder()
+                .email("bitmask@gmail.com")
+                .password("password")
+                .name("비트마스크")
+                .roles(Set.of(AccountRole.ADMIN, AccountRole.USER))
+                .build();
+        this.accountService.saveAccount(account);
+
+        Integer mask = jdbcTemplate.queryForObject("select roles from account where id = ?", Integer.class, account.getId());
+        assertThat(mask).isEqualTo(AccountRole.ADMIN.getMask() | AccountRole.USER.getMask());
+
+        jdbcTemplate.update("update account set roles = ? where id = ?", AccountRole.USER.getMask(), account.getId());
+        this.accountService.evictUser("bitmask@gmail.com");
+        entityManagerFactory.getCache().evict(Account.class);
+        UserDetails userDetails = this.accountService.loadUserByUsername("bitmask@gmail.com");
+        assertThat(((AccountAdapter) userDetails).getAccount().getRoles()).isEqualTo(EnumSet.of(AccountRole.USER));
+    }
+
+    @Test
+    public void encodeAllWaitsWhenHashingQueueIsFull() throws Exception {
+        HashingPasswordEncoder encoder = new HashingPasswordEncoder(new BCryptPasswordEncoder(4), 4, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 2; i++) {
+                encoder.getExecutor().execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            CompletableFuture<List<String>> encoded = CompletableFuture.supplyAsync(() -> encoder.encodeAll(List.of("a", "b", "c")));
+            Thread.sleep(100);
+            assertThat(encoded.isDone()).isFalse();
+
+            release.countDown();
+            List<String> hashes = encoded.get(10, TimeUnit.SECONDS);
+            assertThat(hashes.size()).isEqualTo(3);
+            assertThat(encoder.matches("a", hashes.get(0))).isTrue();
+            assertThat(encoder.matches("c", hashes.get(2))).isTrue();
+        } finally {
+            release.countDown();
+            encoder.destroy();
+        }
+    }
+
     @Test
     public void findUsernameFail(){
         // Given
@@ -62,6 +233,25 @@ public class AccountServiceTest {
         accountService.loadUserByUsername(username);
     }
 
+    @Test
+    public void unknownUsernameSkipsDatabase() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        try {
+            accountService.loadUserByUsername("nobody@gmail.com");
+        } catch (UsernameNotFoundException expected) {
+        }
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        this.accountRepository.save(Account.builder()
+                .email("repository@gmail.com")
+                .password("password")
+                .name("리포지토리")
+                .roles(Set.of(AccountRole.USER))
+                .build());
+        assertThat(accountService.loadUserByUsername("repository@gmail.com").getUsername()).isEqualTo("repository@gmail.com");
+    }
+
     @Test
     public void existsUser(){
         String username = "sangmin10.kim@gmail.com";
@@ -0,0 +1,226 @@
+package me.sangmessi.soccer.accounts;
+
+import me.sangmessi.soccer.common.BaseControllerTest;
+import me.sangmessi.soccer.commons.TestDescription;
+import me.sangmessi.soccer.configs.AppProperties;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.security.oauth2.common.util.Jackson2JsonParser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Collection;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@TestPropertySource(properties = {
+        "my-app.write-behind.enabled=true",
+        "my-app.write-behind.max-pending=2",
+        "my-app.write-behind.flush-interval=PT1H"
+})
+public class AccountWriteBehindTest extends BaseControllerTest {
+
+    @Autowired
+    AppProperties appProperties;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    AccountWriteBehind accountWriteBehind;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @After
+    public void flush() {
+        accountWriteBehind.flush();
+    }
+
+    @Test
+    @TestDescription("Prefer: respond-async 수정은 202 로 받고, 같은 계정의 수정은 합쳐져 flush 때 마지막 값만 저장된다")
+    public void coalescesUpdatesUntilFlush() throws Exception {
+        String bearerToken = getBearerToken();
+        Account account = saveAccount("write-behind");
+
+        account.setName("first");
+        this.mockMvc.perform(asyncUpdate(account, bearerToken))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("name").value("first"))
+                .andExpect(jsonPath("_links.self").exists());
+
+        account.setName("second");
+        account.setRoles(Set.of(AccountRole.ADMIN, AccountRole.USER));
+        this.mockMvc.perform(asyncUpdate(account, bearerToken))
+                .andExpect(status().isAccepted());
+
+        assertThat(accountWriteBehind.getPending()).isEqualTo(1);
+        assertThat(nameInDatabase(account)).isEqualTo("write-behind");
+
+        assertThat(accountWriteBehind.flush()).isEqualTo(1);
+        assertThat(nameInDatabase(account)).isEqualTo("second");
+        assertThat(jdbcTemplate.queryForObject("select version from account where id = ?", Long.class, account.getId()))
+                .isEqualTo(account.getVersion() + 1);
+        this.mockMvc.perform(get("/api/accounts/{id}", account.getId())
+                    .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                    .accept(MediaTypes.HAL_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name").value("second"))
+                .andExpect(jsonPath("roles.length()").value(2));
+    }
+
+    @Test
+    @TestDescription("PATCH 수정은 속성별로 합쳐져 앞선 수정의 다른 속성을 지우지 않는다")
+    public void mergesPartialUpdates() throws Exception {
+        String bearerToken = getBearerToken();
+        Account account = saveAccount("write-behind-patch");
+
+        this.mockMvc.perform(asyncPatch(account, "{\"name\":\"patched\"}", bearerToken))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("name").value("patched"))
+                .andExpect(jsonPath("email").value(account.getEmail()));
+        this.mockMvc.perform(asyncPatch(account, "{\"roles\":[\"ADMIN\"]}", bearerToken))
+                .andExpect(status().isAccepted());
+
+        accountWriteBehind.flush();
+        Account patched = accountRepository.findById(account.getId()).get();
+        assertThat(patched.getName()).isEqualTo("patched");
+        assertThat(patched.getRoles()).containsExactly(AccountRole.ADMIN);
+    }
+
+    @Test
+    @TestDescription("flush 가 실패한 수정은 다시 대기하고, 그 사이 들어온 같은 계정의 수정과 속성별로 합쳐진다")
+    public void retriesFailedFlush() throws Exception {
+        String bearerToken = getBearerToken();
+        Account account = saveAccount("write-behind-failed");
+        this.mockMvc.perform(asyncPatch(account, "{\"roles\":[\"ADMIN\"]}", bearerToken))
+                .andExpect(status().isAccepted());
+
+        JdbcTemplate jdbcTemplate = accountWriteBehind.jdbcTemplate;
+        accountWriteBehind.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize, ParameterizedPreparedStatementSetter<T> pss) {
+                // 쓰는 동안 이름만 바꾸는 수정이 들어온다.
+                accountWriteBehind.enqueue(account, Account.builder().name("newer").build());
+                throw new DataAccessResourceFailureException("database unavailable");
+            }
+        };
+        try {
+            assertThat(accountWriteBehind.flush()).isZero();
+        } finally {
+            accountWriteBehind.jdbcTemplate = jdbcTemplate;
+        }
+        assertThat(accountWriteBehind.getPending()).isEqualTo(1);
+        assertThat(nameInDatabase(account)).isEqualTo("write-behind-failed");
+
+        assertThat(accountWriteBehind.flush()).isEqualTo(1);
+        Account flushed = accountRepository.findById(account.getId()).get();
+        assertThat(flushed.getName()).isEqualTo("newer");
+        assertThat(flushed.getRoles()).containsExactly(AccountRole.ADMIN);
+    }
+
+    @Test
+    @TestDescription("이메일이 바뀌는 수정은 Prefer 가 있어도 바로 저장한다")
+    public void emailChangeIsSynchronous() throws Exception {
+        Account account = saveAccount("write-behind-email");
+        account.setEmail("write-behind-email-changed@gmail.com");
+
+        this.mockMvc.perform(asyncUpdate(account, getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Preference-Applied"));
+        assertThat(accountWriteBehind.getPending()).isZero();
+    }
+
+    @Test
+    @TestDescription("If-Match 가 있는 수정은 Prefer 가 있어도 version 을 확인하며 바로 저장한다")
+    public void conditionalUpdateIsSynchronous() throws Exception {
+        String bearerToken = getBearerToken();
+        Account account = saveAccount("write-behind-if-match");
+        String eTag = AccountVersion.of(account).getStrongETag();
+
+        this.mockMvc.perform(asyncPatch(account, "{\"name\":\"matched\"}", bearerToken)
+                    .header(HttpHeaders.IF_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Preference-Applied"))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        assertThat(accountWriteBehind.getPending()).isZero();
+        assertThat(nameInDatabase(account)).isEqualTo("matched");
+
+        this.mockMvc.perform(asyncPatch(account, "{\"name\":\"stale\"}", bearerToken)
+                    .header(HttpHeaders.IF_MATCH, eTag))
+                .andExpect(status().isPreconditionFailed());
+        assertThat(accountWriteBehind.getPending()).isZero();
+        assertThat(nameInDatabase(account)).isEqualTo("matched");
+    }
+
+    @Test
+    @TestDescription("대기 중인 계정이 max-pending 이면 새 계정의 수정은 503 으로 거절한다")
+    public void rejectsWhenFull() throws Exception {
+        String bearerToken = getBearerToken();
+        Account first = saveAccount("write-behind-full-1");
+        Account second = saveAccount("write-behind-full-2");
+        Account third = saveAccount("write-behind-full-3");
+
+        this.mockMvc.perform(asyncUpdate(first, bearerToken)).andExpect(status().isAccepted());
+        this.mockMvc.perform(asyncUpdate(second, bearerToken)).andExpect(status().isAccepted());
+        this.mockMvc.perform(asyncUpdate(third, bearerToken)).andExpect(status().isServiceUnavailable());
+        this.mockMvc.perform(asyncUpdate(first, bearerToken)).andExpect(status().isAccepted());
+    }
+
+    private Account saveAccount(String name) {
+        return accountRepository.save(Account.builder()
+                .email(name + "@gmail.com")
+                .password("password")
+                .name(name)
+                .roles(Set.of(AccountRole.USER))
+                .build());
+    }
+
+    private String nameInDatabase(Account account) {
+        return jdbcTemplate.queryForObject("select name from account where id = ?", String.class, account.getId());
+    }
+
+    private RequestBuilder asyncUpdate(Account account, String bearerToken) throws Exception {
+        return put("/api/accounts/{id}", account.getId())
+                .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaTypes.HAL_JSON)
+                .content(objectMapper.writeValueAsString(account));
+    }
+
+    private MockHttpServletRequestBuilder asyncPatch(Account account, String content, String bearerToken) {
+        return patch("/api/accounts/{id}", account.getId())
+                .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaTypes.HAL_JSON)
+                .content(content);
+    }
+
+    private String getBearerToken() throws Exception {
+        String content = this.mockMvc.perform(post("/oauth/token")
+                    .with(httpBasic(appProperties.getClientId(), appProperties.getClientSecret()))
+                    .param("username", appProperties.getAdminUsername())
+                    .param("password", appProperties.getAdminPassword())
+                    .param("grant_type", "password"))
+                .andReturn().getResponse().getContentAsString();
+        return "Bearer " + new Jackson2JsonParser().parseMap(content).get("access_token");
+    }
+}
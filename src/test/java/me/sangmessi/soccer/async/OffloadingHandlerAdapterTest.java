@@ -0,0 +1,214 @@
+package me.sangmessi.soccer.async;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import me.sangmessi.soccer.accounts.Account;
+import me.sangmessi.soccer.accounts.AccountRepository;
+import me.sangmessi.soccer.common.BaseControllerTest;
+import me.sangmessi.soccer.commons.TestDescription;
+import me.sangmessi.soccer.configs.AppProperties;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.common.util.Jackson2JsonParser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@TestPropertySource(properties = {
+        "my-app.async.enabled=true",
+        "my-app.async.database-permits=1",
+        "my-app.async.database-acquire-timeout=50ms",
+        "my-app.async.timeout=100ms"
+})
+public class OffloadingHandlerAdapterTest extends BaseControllerTest {
+
+    @Autowired
+    AppProperties appProperties;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    DatabaseConcurrencyLimiter databaseConcurrencyLimiter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    SlowController slowController;
+
+    @Test
+    @TestDescription("@DatabaseBound 핸들러는 비동기로 실행되고 async dispatch 에서 원래 응답을 돌려준다")
+    public void accountHandlerRunsAsync() throws Exception {
+        Account admin = accountRepository.findByEmail(appProperties.getAdminUsername()).orElseThrow();
+
+        MvcResult result = this.mockMvc.perform(get("/api/accounts/{id}", admin.getId())
+                    .header(HttpHeaders.AUTHORIZATION, getBearerToken())
+                    .accept(MediaTypes.HAL_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // 메서드가 돌아와도 응답을 직렬화하는 async dispatch 가 끝날 때까지 허가를 잡고 있다.
+        result.getAsyncResult();
+        assertThat(databaseConcurrencyLimiter.getActive()).isEqualTo(1);
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("email").value(admin.getEmail()))
+                .andExpect(jsonPath("_links.self").exists())
+                .andExpect(jsonPath("_links.update-account").exists());
+        assertThat(databaseConcurrencyLimiter.getActive()).isZero();
+    }
+
+    @Test
+    @TestDescription("데이터베이스를 쓰지 않는 핸들러는 요청 스레드에서 바로 처리된다")
+    public void indexHandlerRunsSync() throws Exception {
+        this.mockMvc.perform(get("/api/"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_links.accounts").exists());
+    }
+
+    @Test
+    @TestDescription("데이터베이스 허가를 acquire-timeout 안에 받지 못하면 503 으로 거절한다")
+    public void databaseBusy() throws Exception {
+        String bearerToken = getBearerToken();
+        double rejectedBefore = meterRegistry.get("accounts.database.rejected").functionCounter().count();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> holder = executor.submit(() -> databaseConcurrencyLimiter.call(() -> {
+                acquired.countDown();
+                release.await();
+                return null;
+            }));
+            assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+
+            MvcResult result = this.mockMvc.perform(get("/api/accounts")
+                        .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                        .accept(MediaTypes.HAL_JSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            this.mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isServiceUnavailable());
+
+            // 응답을 직접 쓰는 스트리밍 핸들러도 요청 스레드에서 같은 허가를 기다린다.
+            this.mockMvc.perform(get("/api/accounts")
+                        .param("stream", "true")
+                        .header(HttpHeaders.AUTHORIZATION, bearerToken)
+                        .accept(MediaTypes.HAL_JSON))
+                    .andExpect(request().asyncNotStarted())
+                    .andExpect(status().isServiceUnavailable());
+
+            release.countDown();
+            holder.get();
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertThat(meterRegistry.get("accounts.database.rejected").functionCounter().count()).isEqualTo(rejectedBefore + 2);
+    }
+
+    @Test
+    @TestDescription("타임아웃으로 요청이 끝나도 메서드가 돌아올 때까지 데이터베이스 허가를 잡고 있는다")
+    public void permitHeldUntilHandlerReturnsAfterTimeout() throws Exception {
+        slowController.release = new CountDownLatch(1);
+        try {
+            MvcResult result = this.mockMvc.perform(get("/api/slow"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            assertThat(slowController.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // MockMvc 는 컨테이너의 async 타이머를 돌리지 않으므로 my-app.async.timeout 이 지난 것처럼 직접 알리고 요청을 끝낸다.
+            MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+            for (AsyncListener listener : asyncContext.getListeners()) {
+                listener.onTimeout(new AsyncEvent(asyncContext));
+            }
+            assertThat(WebAsyncUtils.getAsyncManager(result.getRequest()).getConcurrentResult())
+                    .isInstanceOf(AsyncRequestTimeoutException.class);
+            asyncContext.complete();
+            assertThat(databaseConcurrencyLimiter.getActive()).isEqualTo(1);
+
+            slowController.release.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (databaseConcurrencyLimiter.getActive() != 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(databaseConcurrencyLimiter.getActive()).isZero();
+        } finally {
+            slowController.release.countDown();
+        }
+    }
+
+    private String getBearerToken() throws Exception {
+        String content = this.mockMvc.perform(post("/oauth/token")
+                    .with(httpBasic(appProperties.getClientId(), appProperties.getClientSecret()))
+                    .param("username", appProperties.getAdminUsername())
+                    .param("password", appProperties.getAdminPassword())
+                    .param("grant_type", "password"))
+                .andReturn().getResponse().getContentAsString();
+        return "Bearer " + new Jackson2JsonParser().parseMap(content).get("access_token");
+    }
+
+    @TestConfiguration
+    static class SlowHandlerConfig {
+
+        @Bean
+        SlowController slowController() {
+            return new SlowController();
+        }
+    }
+
+    @RestController
+    @DatabaseBound
+    static class SlowController {
+
+        final CountDownLatch started = new CountDownLatch(1);
+
+        volatile CountDownLatch release = new CountDownLatch(0);
+
+        /**
+         * 타임아웃 때 작업 스레드가 인터럽트돼도 멈추지 않는 JDBC 호출처럼 release 될 때까지 돌아오지 않는다.
+         */
+        @GetMapping("/api/slow")
+        String slow() {
+            started.countDown();
+            boolean interrupted = false;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (true) {
+                try {
+                    release.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        }
+    }
+}
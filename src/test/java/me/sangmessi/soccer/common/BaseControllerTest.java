@@ -1,9 +1,9 @@
 package me.sangmessi.soccer.common;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import me.sangmessi.soccer.accounts.AccountMapper;
 import org.junit.Ignore;
 import org.junit.runner.RunWith;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.restdocs.AutoConfigureRestDocs;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -29,6 +29,6 @@ public class BaseControllerTest {
     protected ObjectMapper objectMapper;
 
     @Autowired
-    protected ModelMapper modelMapper;
+    protected AccountMapper accountMapper;
 
 }
@@ -1,26 +1,57 @@
 package me.sangmessi.soccer.configs;
 
 
+import me.sangmessi.soccer.accounts.Account;
+import me.sangmessi.soccer.accounts.AccountRepository;
+import me.sangmessi.soccer.accounts.AccountRole;
 import me.sangmessi.soccer.accounts.AccountService;
 import me.sangmessi.soccer.common.BaseControllerTest;
 import me.sangmessi.soccer.commons.TestDescription;
+import me.sangmessi.soccer.passwords.HashingPasswordEncoder;
+import me.sangmessi.soccer.passwords.PasswordHashingExceptionTranslator;
+import me.sangmessi.soccer.passwords.PasswordHashingRejectedException;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.MessageDigestPasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
+import org.springframework.test.context.TestPropertySource;
 
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+// 로그인 때 다시 해시하는지 보려고 test 프로파일의 cost(4)보다 한 단계 올린다.
+@TestPropertySource(properties = "my-app.password-hashing.min-strength=5")
 public class AuthServerConfigTest extends BaseControllerTest {
 
     @Autowired
     AccountService accountService;
 
+    @Autowired
+    AccountRepository accountRepository;
+
     @Autowired
     AppProperties appProperties;
 
+    @Autowired
+    HashingPasswordEncoder passwordEncoder;
+
     @Test
     @TestDescription("인증 토큰을 발급 받는 서비스 ")
     public void authToken() throws Exception {
@@ -37,4 +68,92 @@ public class AuthServerConfigTest extends BaseControllerTest {
                 ;
     }
 
-}
\ No newline at end of file
+    @Test
+    @TestDescription("토큰 발급으로 로그인하면 낮은 cost 의 bcrypt 와 예전 인코딩(pbkdf2, noop, SHA-256) 비밀번호를 현재 cost 의 bcrypt 로 다시 저장하기")
+    public void rehashPasswordOnLogin() throws Exception {
+        assertThat(passwordEncoder.getStrength()).isEqualTo(5);
+        assertRehashedOnLogin("rehash-bcrypt@gmail.com", "{bcrypt}" + new BCryptPasswordEncoder(4).encode("legacy"));
+        assertRehashedOnLogin("rehash-pbkdf2@gmail.com", "{pbkdf2}" + new Pbkdf2PasswordEncoder().encode("legacy"));
+        assertRehashedOnLogin("rehash-noop@gmail.com", "{noop}legacy");
+        assertRehashedOnLogin("rehash-sha256@gmail.com", "{SHA-256}" + new MessageDigestPasswordEncoder("SHA-256").encode("legacy"));
+    }
+
+    private void assertRehashedOnLogin(String email, String legacyHash) throws Exception {
+        Account account = this.accountService.saveAccount(Account.builder()
+                .email(email)
+                .password("legacy")
+                .name("레거시")
+                .roles(Set.of(AccountRole.USER))
+                .build());
+        this.accountRepository.updatePassword(account.getId(), legacyHash);
+        this.accountService.evictUser(email);
+
+        this.mockMvc.perform(post("/oauth/token")
+                .with(httpBasic(appProperties.getClientId(), appProperties.getClientSecret()))
+                .param("username", email)
+                .param("password", "legacy")
+                .param("grant_type", "password")
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("access_token").exists());
+
+        String password = this.accountRepository.findByEmail(email).orElseThrow().getPassword();
+        assertThat(password).startsWith("{bcrypt}$2a$05$");
+        assertThat(passwordEncoder.upgradeEncoding(password)).isFalse();
+        assertThat(passwordEncoder.matches("legacy", password)).isTrue();
+    }
+
+    @Test
+    @TestDescription("해시 대기열이 가득 차면 토큰 발급은 500 이 아니라 503 과 Retry-After 로 응답하기")
+    public void authTokenWhenHashingQueueIsFull() throws Exception {
+        ThreadPoolExecutor executor = passwordEncoder.getExecutor();
+        CountDownLatch started = new CountDownLatch(executor.getMaximumPoolSize());
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocker = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        try {
+            // 스레드가 모두 작업을 잡은 뒤에 대기열을 채워야 빈 자리가 남지 않는다.
+            for (int i = 0; i < executor.getMaximumPoolSize(); i++) {
+                executor.execute(blocker);
+            }
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            while (executor.getQueue().remainingCapacity() > 0) {
+                executor.execute(blocker);
+            }
+
+            this.mockMvc.perform(post("/oauth/token")
+                    .with(httpBasic(appProperties.getClientId(), appProperties.getClientSecret()))
+                    .param("username", appProperties.getUserUsername())
+                    .param("password", appProperties.getUserPassword())
+                    .param("grant_type", "password")
+            )
+                    .andDo(print())
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                    ;
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @TestDescription("비밀번호 확인 중 해시 대기열이 가득 차면 토큰 엔드포인트도 503 temporarily_unavailable 로 응답하기")
+    public void translatePasswordHashingRejected() throws Exception {
+        PasswordHashingExceptionTranslator translator = new PasswordHashingExceptionTranslator(Duration.ofMillis(1500));
+
+        ResponseEntity<OAuth2Exception> response = translator.translate(
+                new IllegalStateException(new PasswordHashingRejectedException(new RejectedExecutionException())));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getBody().getOAuth2ErrorCode()).isEqualTo("temporarily_unavailable");
+        assertThat(translator.translate(new IllegalStateException()).getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+}
@@ -0,0 +1,72 @@
+package me.sangmessi.soccer.configs;
+
+import me.sangmessi.soccer.common.BaseControllerTest;
+import me.sangmessi.soccer.commons.TestDescription;
+import me.sangmessi.soccer.tokens.CachingJwtTokenStore;
+import me.sangmessi.soccer.tokens.StoredAccessTokenRepository;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.common.util.Jackson2JsonParser;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "my-app.token-store.type=jwt",
+        "my-app.token-store.signing-key=jwt-token-store-test"
+})
+public class JwtTokenStoreTest extends BaseControllerTest {
+
+    @Autowired
+    AppProperties appProperties;
+
+    @Autowired
+    TokenStore tokenStore;
+
+    @Autowired
+    StoredAccessTokenRepository storedAccessTokenRepository;
+
+    @Test
+    @TestDescription("JWT 모드에서 발급 받은 토큰으로 저장소 없이 보호된 API 를 호출하기")
+    public void issueAndUseJwt() throws Exception {
+        String content = this.mockMvc.perform(post("/oauth/token")
+                .with(httpBasic(appProperties.getClientId(), appProperties.getClientSecret()))
+                .param("username", appProperties.getAdminUsername())
+                .param("password", appProperties.getAdminPassword())
+                .param("grant_type", "password"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String accessToken = new Jackson2JsonParser().parseMap(content).get("access_token").toString();
+
+        assertThat(tokenStore).isInstanceOf(CachingJwtTokenStore.class);
+        assertThat(accessToken.split("\\.")).hasSize(3);
+        assertThat(storedAccessTokenRepository.count()).isZero();
+
+        this.mockMvc.perform(get("/api/accounts/export")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(get("/api/accounts/export")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken.substring(0, accessToken.length() - 2)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @TestDescription("JWT 모드에서 서명 키가 없으면 시작하지 않기")
+    public void signingKeyRequired() {
+        SecurityConfig securityConfig = new SecurityConfig();
+        securityConfig.appProperties = new AppProperties();
+        securityConfig.appProperties.getTokenStore().setType(AppProperties.TokenStoreType.JWT);
+
+        assertThatThrownBy(securityConfig::jwtAccessTokenConverter)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("signing-key");
+    }
+}
@@ -0,0 +1,88 @@
+package me.sangmessi.soccer.configs;
+
+import me.sangmessi.soccer.accounts.Account;
+import me.sangmessi.soccer.accounts.AccountRole;
+import me.sangmessi.soccer.accounts.AccountService;
+import me.sangmessi.soccer.common.BaseControllerTest;
+import me.sangmessi.soccer.commons.TestDescription;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.common.util.Jackson2JsonParser;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 운영 설정처럼 Hibernate 통계를 끈 상태에서도 2차 캐시 리전 메트릭이 나와야 한다.
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=false")
+public class MetricsTest extends BaseControllerTest {
+
+    @Autowired
+    AppProperties appProperties;
+
+    @Autowired
+    AccountService accountService;
+
+    @Test
+    @TestDescription("토큰 발급과 API 호출 후 관리자 토큰으로 prometheus 엔드포인트에서 메트릭 조회하기")
+    public void prometheus() throws Exception {
+        String accessToken = getAccessToken(appProperties.getUserUsername(), appProperties.getUserPassword());
+
+        this.mockMvc.perform(get("/api/accounts")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                .accept(MediaTypes.HAL_JSON))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+
+        this.mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(get("/actuator/prometheus")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("accounts_load_seconds_count{result=\"success\",source=\"database\",}")))
+                .andExpect(content().string(containsString("password_matches_seconds_count{result=\"success\",}")))
+                .andExpect(content().string(containsString("tokens_issue_seconds_count{result=\"success\",}")))
+                .andExpect(content().string(containsString("tokens_read_seconds_count{result=\"hit\",type=\"access-token\",}")))
+                .andExpect(content().string(containsString("cache_gets_total{cache=\"accounts\"")))
+                .andExpect(content().string(containsString("ratelimit_rejected_total{key=\"username\",}")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_count")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("cache_gets_total{cache=\"account\",result=\"hit\",}")));
+    }
+
+    @Test
+    @TestDescription("관리자가 아닌 사용자는 prometheus 엔드포인트를 조회할 수 없다")
+    public void prometheusForbiddenForUser() throws Exception {
+        this.accountService.saveAccount(Account.builder()
+                .email("metrics@gmail.com")
+                .password("password")
+                .roles(Set.of(AccountRole.USER))
+                .build());
+        String accessToken = getAccessToken("metrics@gmail.com", "password");
+
+        this.mockMvc.perform(get("/actuator/prometheus")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isForbidden());
+    }
+
+    private String getAccessToken(String username, String password) throws Exception {
+        String content = this.mockMvc.perform(post("/oauth/token")
+                .with(httpBasic(appProperties.getClientId(), appProperties.getClientSecret()))
+                .param("username", username)
+                .param("password", password)
+                .param("grant_type", "password"))
+                .andReturn().getResponse().getContentAsString();
+        return new Jackson2JsonParser().parseMap(content).get("access_token").toString();
+    }
+}
@@ -0,0 +1,320 @@
+package me.sangmessi.soccer.load;
+
+import me.sangmessi.soccer.accounts.Account;
+import me.sangmessi.soccer.accounts.AccountRepository;
+import me.sangmessi.soccer.accounts.AccountRole;
+import me.sangmessi.soccer.configs.AppProperties;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.common.util.Jackson2JsonParser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 내장 서버(랜덤 포트)와 test 프로파일(H2)로 계정 API 에 읽기/쓰기 혼합 부하를 주고
+ * 엔드포인트별 처리량과 HDR 히스토그램 지연 시간을 기록한다. 기본 빌드에서는 제외된다.
+ *
+ * ./mvnw -P load-test test -Dload.accounts=10000 -Dload.concurrency=32 -Dload.duration=PT60S
+ *
+ * 결과 표는 로그와 target/load-test/summary.txt 에, 히스토그램은 target/load-test/*.hgrm 에 남는다.
+ *
+ * 동시 클라이언트가 Tomcat 스레드(200)보다 많을 때 실행 모드를 비교하려면 my-app.async.enabled 를 바꿔 가며 실행한다.
+ * INDEX 는 데이터베이스를 쓰지 않는 엔드포인트로, 계정 API 가 밀릴 때 함께 느려지는지 본다.
+ *
+ * -Dload.gzip=true 이면 Accept-Encoding: gzip 을 보낸다. bytes/req 는 압축된 본문 크기다(헤더 제외).
+ *
+ * ./mvnw -P load-test test -Dload.concurrency=2000 -Dload.mix=TOKEN:5,LIST:30,GET:50,CREATE:10,INDEX:5 \
+ *     -Dmy-app.async.enabled=true -Dmy-app.async.queue-capacity=2000
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+        "logging.level.org.springframework.security=WARN"
+})
+@ActiveProfiles("test")
+public class AccountApiLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountApiLoadTest.class);
+
+    private static final int SEED_BATCH_SIZE = 1_000;
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    enum Endpoint {
+        TOKEN("POST /oauth/token", 200),
+        LIST("GET /api/accounts", 200),
+        GET("GET /api/accounts/{id}", 200),
+        CREATE("POST /api/accounts", 201),
+        INDEX("GET /api", 200);
+
+        private final String description;
+        private final int expectedStatus;
+
+        Endpoint(String description, int expectedStatus) {
+            this.description = description;
+            this.expectedStatus = expectedStatus;
+        }
+    }
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    AppProperties appProperties;
+
+    private final int accounts = Integer.getInteger("load.accounts", 1_000);
+
+    private final int concurrency = Integer.getInteger("load.concurrency", 16);
+
+    private final Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT5S"));
+
+    private final Duration duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+
+    private final String mix = System.getProperty("load.mix", "TOKEN:5,LIST:30,GET:55,CREATE:10");
+
+    private final double maxErrorRate = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+
+    private final boolean gzip = Boolean.getBoolean("load.gzip");
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final AtomicInteger createdAccounts = new AtomicInteger();
+
+    private Endpoint[] weightedEndpoints;
+
+    private List<Integer> accountIds;
+
+    private String bearerToken;
+
+    @Test
+    public void mixedWorkload() throws Exception {
+        weightedEndpoints = weightedEndpoints(mix);
+        accountIds = seedAccounts(accounts);
+        bearerToken = "Bearer " + issueToken();
+
+        Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, AtomicLong> bytes = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            histograms.put(endpoint, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(endpoint, new AtomicLong());
+            bytes.put(endpoint, new AtomicLong());
+        }
+
+        drive(warmup, null, null, null);
+        long elapsedNanos = drive(duration, histograms, errors, bytes);
+
+        long totalRequests = histograms.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        long totalErrors = errors.values().stream().mapToLong(AtomicLong::get).sum();
+        report(histograms, errors, bytes, elapsedNanos);
+
+        assertThat(totalRequests).isPositive();
+        assertThat((double) totalErrors / totalRequests).isLessThanOrEqualTo(maxErrorRate);
+    }
+
+    /**
+     * concurrency 개의 스레드가 주어진 시간 동안 쉬지 않고 요청을 보낸다. histograms 가 null 이면 기록하지 않는다(워밍업).
+     */
+    private long drive(Duration phase, Map<Endpoint, Histogram> histograms, Map<Endpoint, AtomicLong> errors,
+                       Map<Endpoint, AtomicLong> bytes) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long deadline = start + phase.toNanos();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        Endpoint endpoint = weightedEndpoints[random.nextInt(weightedEndpoints.length)];
+                        long requestStart = System.nanoTime();
+                        HttpResponse<byte[]> response = call(endpoint, random);
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStart);
+                        if (histograms != null) {
+                            histograms.get(endpoint).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                            if (response == null || response.statusCode() != endpoint.expectedStatus) {
+                                errors.get(endpoint).incrementAndGet();
+                            }
+                            if (response != null) {
+                                bytes.get(endpoint).addAndGet(response.body().length);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private HttpResponse<byte[]> call(Endpoint endpoint, ThreadLocalRandom random) {
+        try {
+            return httpClient.send(request(endpoint, random), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private HttpRequest request(Endpoint endpoint, ThreadLocalRandom random) {
+        HttpRequest.Builder builder = requestBuilder(endpoint, random);
+        if (gzip) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        return builder.build();
+    }
+
+    private HttpRequest.Builder requestBuilder(Endpoint endpoint, ThreadLocalRandom random) {
+        switch (endpoint) {
+            case TOKEN:
+                return tokenRequestBuilder();
+            case LIST:
+                int pages = Math.max(1, accountIds.size() / 20);
+                return HttpRequest.newBuilder(uri("/api/accounts?size=20&page=" + random.nextInt(pages)))
+                        .header("Authorization", bearerToken)
+                        .header("Accept", "application/hal+json")
+                        .GET();
+            case GET:
+                return HttpRequest.newBuilder(uri("/api/accounts/" + accountIds.get(random.nextInt(accountIds.size()))))
+                        .header("Authorization", bearerToken)
+                        .header("Accept", "application/hal+json")
+                        .GET();
+            case CREATE:
+                int n = createdAccounts.incrementAndGet();
+                String body = "{\"email\":\"load" + n + "@gmail.com\",\"password\":\"password\","
+                        + "\"name\":\"load" + n + "\",\"roles\":[\"USER\"]}";
+                return HttpRequest.newBuilder(uri("/api/accounts"))
+                        .header("Authorization", bearerToken)
+                        .header("Content-Type", "application/json;charset=UTF-8")
+                        .header("Accept", "application/hal+json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body));
+            case INDEX:
+                return HttpRequest.newBuilder(uri("/api"))
+                        .header("Accept", "application/hal+json")
+                        .GET();
+            default:
+                throw new IllegalArgumentException(endpoint.name());
+        }
+    }
+
+    private HttpRequest.Builder tokenRequestBuilder() {
+        String clientCredentials = Base64.getEncoder().encodeToString(
+                (appProperties.getClientId() + ":" + appProperties.getClientSecret()).getBytes(StandardCharsets.UTF_8));
+        String form = "grant_type=password&username=" + appProperties.getAdminUsername()
+                + "&password=" + appProperties.getAdminPassword();
+        return HttpRequest.newBuilder(uri("/oauth/token"))
+                .header("Authorization", "Basic " + clientCredentials)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form));
+    }
+
+    private String issueToken() throws Exception {
+        HttpResponse<String> response = httpClient.send(tokenRequestBuilder().build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return new Jackson2JsonParser().parseMap(response.body()).get("access_token").toString();
+    }
+
+    private List<Integer> seedAccounts(int count) {
+        String encodedPassword = passwordEncoder.encode("password");
+        List<Integer> ids = new ArrayList<>(count);
+        for (int from = 0; from < count; from += SEED_BATCH_SIZE) {
+            List<Account> batch = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = from; i < Math.min(from + SEED_BATCH_SIZE, count); i++) {
+                batch.add(Account.builder()
+                        .email("seed" + i + "@gmail.com")
+                        .password(encodedPassword)
+                        .name("seed" + i)
+                        .roles(Set.of(AccountRole.USER))
+                        .build());
+            }
+            accountRepository.saveAll(batch).forEach(account -> ids.add(account.getId()));
+        }
+        return ids;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private void report(Map<Endpoint, Histogram> histograms, Map<Endpoint, AtomicLong> errors, Map<Endpoint, AtomicLong> bytes,
+                        long elapsedNanos) throws Exception {
+        double seconds = elapsedNanos / 1e9;
+        File directory = new File("target/load-test");
+        directory.mkdirs();
+
+        Formatter summary = new Formatter();
+        summary.format("Load test: %d accounts, concurrency %d, %s, async %s, gzip %s%n",
+                accounts, concurrency, duration, appProperties.getAsync().isEnabled(), gzip);
+        summary.format("%-26s %9s %9s %8s %9s %9s %9s %9s %9s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "bytes/req");
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = histograms.get(endpoint);
+            summary.format("%-26s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f %10d%n",
+                    endpoint.description,
+                    histogram.getTotalCount(),
+                    histogram.getTotalCount() / seconds,
+                    errors.get(endpoint).get(),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0,
+                    histogram.getTotalCount() == 0 ? 0 : bytes.get(endpoint).get() / histogram.getTotalCount());
+
+            try (PrintStream hgrm = new PrintStream(new File(directory, endpoint.name().toLowerCase() + ".hgrm"), "UTF-8")) {
+                histogram.outputPercentileDistribution(hgrm, 1000.0);
+            }
+        }
+        Files.write(new File(directory, "summary.txt").toPath(), summary.toString().getBytes(StandardCharsets.UTF_8));
+        log.info("{}{}", System.lineSeparator(), summary);
+    }
+
+    private static Endpoint[] weightedEndpoints(String mix) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.trim().split(":");
+            Endpoint endpoint = Endpoint.valueOf(weight[0].trim().toUpperCase());
+            for (int i = 0; i < Integer.parseInt(weight[1].trim()); i++) {
+                endpoints.add(endpoint);
+            }
+        }
+        return endpoints.toArray(new Endpoint[0]);
+    }
+}
@@ -0,0 +1,153 @@
+package me.sangmessi.soccer.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import me.sangmessi.soccer.common.BaseControllerTest;
+import me.sangmessi.soccer.commons.TestDescription;
+import me.sangmessi.soccer.configs.AppProperties;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "my-app.rate-limit.username.permits-per-second=0.1",
+        "my-app.rate-limit.username.burst=2"
+})
+public class RateLimitFilterTest extends BaseControllerTest {
+
+    @Autowired
+    AppProperties appProperties;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    @TestDescription("같은 사용자 이름으로 토큰을 연속으로 요청하면 허용량을 넘은 요청은 429 와 Retry-After 를 받는다")
+    public void tokenRequestsPerUsername() throws Exception {
+        double rejectedBefore = meterRegistry.counter("ratelimit.rejected", "key", "username").count();
+
+        for (int i = 0; i < 2; i++) {
+            int status = this.mockMvc.perform(tokenRequest("limited@gmail.com"))
+                    .andReturn().getResponse().getStatus();
+            assertThat(status).isNotEqualTo(429);
+        }
+
+        this.mockMvc.perform(tokenRequest("limited@gmail.com"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "10"));
+
+        int otherUser = this.mockMvc.perform(tokenRequest("other@gmail.com"))
+                .andReturn().getResponse().getStatus();
+        assertThat(otherUser).isNotEqualTo(429);
+        assertThat(meterRegistry.counter("ratelimit.rejected", "key", "username").count()).isEqualTo(rejectedBefore + 1);
+    }
+
+    @Test
+    @TestDescription("토큰 버킷은 burst 만큼 허용한 뒤 emission interval 마다 하나씩 다시 허용한다")
+    public void tokenBucket() {
+        long interval = TimeUnit.MILLISECONDS.toNanos(100);
+        TokenBucket bucket = new TokenBucket(interval, 3, 0);
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isEqualTo(interval);
+        assertThat(bucket.tryAcquire(interval / 2)).isEqualTo(interval / 2);
+        assertThat(bucket.tryAcquire(interval)).isZero();
+        assertThat(bucket.tryAcquire(interval)).isEqualTo(interval);
+    }
+
+    @Test
+    @TestDescription("버킷이 maximum-buckets 개로 가득 차면 새 키는 제한을 풀지 않고 해시가 같은 키끼리 overflow 버킷을 함께 쓰며, 자리는 sweep 이 만든다")
+    public void overflowBucketWhenFull() {
+        RateLimitFilter filter = fullFilter();
+        long now = 0;
+
+        String sameStripe = keyInStripe(RateLimitFilter.overflowStripe("c"), "c");
+        assertThat(filter.acquire(usernameRequest("c"), now)).isZero();
+        assertThat(filter.acquire(usernameRequest(sameStripe), now)).isZero();
+        assertThat(filter.acquire(usernameRequest("c"), now)).isPositive();
+        assertThat(filter.acquire(usernameRequest(sameStripe), now)).isPositive();
+        assertThat(filter.acquire(usernameRequest("a"), now)).isZero();
+
+        long later = now + TimeUnit.MINUTES.toNanos(10) + TimeUnit.SECONDS.toNanos(10);
+        filter.evictIdleBuckets(later);
+        assertThat(filter.acquire(usernameRequest("f"), later)).isZero();
+        assertThat(filter.acquire(usernameRequest("f"), later)).isZero();
+        assertThat(filter.acquire(usernameRequest("f"), later)).isPositive();
+    }
+
+    @Test
+    @TestDescription("맵이 가득 찬 뒤 한 키를 몰아 보내도 overflow 버킷이 다른 새 키는 굶기지 않는다")
+    public void overflowDoesNotStarveOtherKeys() {
+        RateLimitFilter filter = fullFilter();
+        long now = 0;
+
+        for (int i = 0; i < 100; i++) {
+            filter.acquire(usernameRequest("flood"), now);
+        }
+        assertThat(filter.acquire(usernameRequest("flood"), now)).isPositive();
+
+        int floodedStripe = RateLimitFilter.overflowStripe("flood");
+        int allowed = 0;
+        for (int i = 0; i < 1_000; i++) {
+            String key = "user" + i + "@gmail.com";
+            if (RateLimitFilter.overflowStripe(key) != floodedStripe && filter.acquire(usernameRequest(key), now) == 0) {
+                allowed++;
+            }
+        }
+        // 서로 다른 키끼리도 overflow 버킷을 나눠 쓸 수 있지만(burst 2), 한 키가 채운 버킷을 모두가 함께 쓰지는 않는다.
+        assertThat(allowed).isGreaterThan(900);
+    }
+
+    /**
+     * a, b 로 maximum-buckets(2) 를 채운 필터. username 은 초당 1 개, burst 2 다.
+     */
+    private static RateLimitFilter fullFilter() {
+        AppProperties.RateLimit properties = new AppProperties.RateLimit();
+        properties.setMaximumBuckets(2);
+        properties.setIdleTimeout(Duration.ofMinutes(10));
+        properties.getClient().setBurst(10_000);
+        properties.getAddress().setBurst(10_000);
+        properties.getUsername().setPermitsPerSecond(1);
+        properties.getUsername().setBurst(2);
+        RateLimitFilter filter = new RateLimitFilter(properties);
+        assertThat(filter.acquire(usernameRequest("a"), 0)).isZero();
+        assertThat(filter.acquire(usernameRequest("b"), 0)).isZero();
+        return filter;
+    }
+
+    private static String keyInStripe(int stripe, String except) {
+        for (int i = 0; ; i++) {
+            String key = "key" + i;
+            if (!key.equals(except) && RateLimitFilter.overflowStripe(key) == stripe) {
+                return key;
+            }
+        }
+    }
+
+    private static MockHttpServletRequest usernameRequest(String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", RateLimitFilter.TOKEN_PATH);
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Basic bXlBcHA6cGFzcw==");
+        request.setParameter("username", username);
+        return request;
+    }
+
+    private org.springframework.test.web.servlet.RequestBuilder tokenRequest(String username) {
+        return post("/oauth/token")
+                .with(httpBasic(appProperties.getClientId(), appProperties.getClientSecret()))
+                .param("username", username)
+                .param("password", "wrong")
+                .param("grant_type", "password");
+    }
+}
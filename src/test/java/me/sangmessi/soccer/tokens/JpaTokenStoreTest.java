@@ -0,0 +1,88 @@
+package me.sangmessi.soccer.tokens;
+
+import me.sangmessi.soccer.accounts.AccountAdapter;
+import me.sangmessi.soccer.common.BaseControllerTest;
+import me.sangmessi.soccer.commons.TestDescription;
+import me.sangmessi.soccer.configs.AppProperties;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.oauth2.common.util.Jackson2JsonParser;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class JpaTokenStoreTest extends BaseControllerTest {
+
+    @Autowired
+    AppProperties appProperties;
+
+    @Autowired
+    StoredAccessTokenRepository accessTokenRepository;
+
+    @Autowired
+    StoredRefreshTokenRepository refreshTokenRepository;
+
+    @Test
+    @TestDescription("AccountAdapter 가 바뀌어 역직렬화할 수 없는 토큰 행은 지우고 새 토큰을 발급하기")
+    public void staleSerializedTokens() throws Exception {
+        String content = issueToken().andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        Map<String, Object> issued = new Jackson2JsonParser().parseMap(content);
+        String accessToken = issued.get("access_token").toString();
+        String refreshToken = issued.get("refresh_token").toString();
+
+        String accessTokenKey = JpaTokenStore.extractTokenKey(accessToken);
+        String refreshTokenKey = JpaTokenStore.extractTokenKey(refreshToken);
+        StoredAccessToken storedAccessToken = accessTokenRepository.findById(accessTokenKey).get();
+        storedAccessToken.setAuthentication(withStaleSerialVersionUID(storedAccessToken.getAuthentication(), AccountAdapter.class));
+        accessTokenRepository.save(storedAccessToken);
+        StoredRefreshToken storedRefreshToken = refreshTokenRepository.findById(refreshTokenKey).get();
+        storedRefreshToken.setAuthentication(withStaleSerialVersionUID(storedRefreshToken.getAuthentication(), AccountAdapter.class));
+        refreshTokenRepository.save(storedRefreshToken);
+
+        // 캐시가 비어 있는 다른 노드처럼 DB 에서 읽는다.
+        JpaTokenStore tokenStore = new JpaTokenStore(accessTokenRepository, refreshTokenRepository, appProperties.getTokenStore());
+        assertThat(tokenStore.readAccessToken(accessToken)).isNull();
+        assertThat(tokenStore.readAuthentication(accessToken)).isNull();
+        assertThat(accessTokenRepository.existsById(accessTokenKey)).isFalse();
+        assertThat(tokenStore.readAuthenticationForRefreshToken(tokenStore.readRefreshToken(refreshToken))).isNull();
+        assertThat(refreshTokenRepository.existsById(refreshTokenKey)).isFalse();
+
+        accessTokenRepository.save(storedAccessToken);
+        String reissued = issueToken().andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertThat(new Jackson2JsonParser().parseMap(reissued).get("access_token")).isNotEqualTo(accessToken);
+        assertThat(accessTokenRepository.existsById(accessTokenKey)).isFalse();
+    }
+
+    private ResultActions issueToken() throws Exception {
+        return this.mockMvc.perform(post("/oauth/token")
+                .with(httpBasic(appProperties.getClientId(), appProperties.getClientSecret()))
+                .param("username", appProperties.getUserUsername())
+                .param("password", appProperties.getUserPassword())
+                .param("grant_type", "password"));
+    }
+
+    /**
+     * 직렬화된 스트림에서 type 의 클래스 설명자 뒤에 오는 serialVersionUID 를 바꿔 배포 전 버전이 쓴 행을 흉내 낸다.
+     */
+    private static byte[] withStaleSerialVersionUID(byte[] serialized, Class<?> type) {
+        byte[] name = type.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] stale = serialized.clone();
+        for (int i = 0; i + name.length + 8 <= stale.length; i++) {
+            int j = 0;
+            while (j < name.length && stale[i + j] == name[j]) {
+                j++;
+            }
+            if (j == name.length) {
+                stale[i + name.length + 7] ^= 1;
+                return stale;
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " is not in the serialized stream");
+    }
+}